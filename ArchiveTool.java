@@ -0,0 +1,72 @@
+import java.io.*;
+import java.nio.file.Path;
+
+/**
+ * Purpose:
+ * Converts between the text save format and game archives.
+ *
+ * Usage:
+ *   java ArchiveTool import archive.kwz game1.txt game2.txt ...
+ *   java ArchiveTool export archive.kwz index game.txt
+ *   java ArchiveTool list archive.kwz
+ */
+public class ArchiveTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 2 && args[0].equals("import")) {
+            importText(Path.of(args[1]), java.util.Arrays.copyOfRange(args, 2, args.length));
+        } else if (args.length == 4 && args[0].equals("export")) {
+            exportText(Path.of(args[1]), Integer.parseInt(args[2]), args[3]);
+        } else if (args.length == 2 && args[0].equals("list")) {
+            list(Path.of(args[1]));
+        } else {
+            System.err.println("Usage: ArchiveTool import <archive> <text files...>");
+            System.err.println("       ArchiveTool export <archive> <index> <text file>");
+            System.err.println("       ArchiveTool list <archive>");
+        }
+    }
+
+    private static void importText(Path archive, String[] files) throws IOException {
+        ChessModel model = new ChessModel();
+        int imported = 0;
+        try (GameArchive.Writer writer = new GameArchive.Writer(archive)) {
+            for (String file : files) {
+                if (LoadModel.readGame(model, file)) {
+                    writer.addPosition(model.getPosition());
+                    imported++;
+                } else {
+                    System.err.println("Skipped " + file);
+                }
+            }
+        }
+        System.out.println("Imported " + imported + " of " + files.length + " games into " + archive);
+    }
+
+    private static void exportText(Path archive, int index, String file) throws IOException {
+        BitboardPosition position = new BitboardPosition();
+        GameArchive games = GameArchive.open(archive);
+        if (games.isRecord(index)) {
+            // Export the final position of the game
+            GameRecord record = games.readRecord(index);
+            record.positionAt(record.size(), position);
+        } else {
+            games.readPosition(index, position);
+        }
+        try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+            SaveModel.writeText(position, writer);
+        }
+    }
+
+    private static void list(Path archive) throws IOException {
+        GameArchive games = GameArchive.open(archive);
+        BitboardPosition position = new BitboardPosition();
+        for (int i = 0; i < games.size(); i++) {
+            if (games.isRecord(i)) {
+                System.out.printf("%d: game of %d moves%n", i, games.readRecord(i).size());
+                continue;
+            }
+            games.readPosition(i, position);
+            System.out.printf("%d: %s to move, key %016x%n", i, position.isPinkToMove() ? "Pink" : "Blue", position.key());
+        }
+    }
+}
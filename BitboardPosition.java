@@ -0,0 +1,681 @@
+/**
+ * Purpose:
+ * This class stores a Kwazam position as a set of 64-bit masks. The 8x5 board has
+ * 40 squares, so every square fits into a single bit of a long. Square indices follow
+ * the tile numbering used by ChessView (row * 5 + column).
+ *
+ * Design:
+ * - The board is always kept from Pink's point of view (Pink starts on rows 6-7).
+ *   The per-turn flip done by FlipScreenController is only a change of perspective,
+ *   so nothing in this class moves when the screen flips.
+ * - One mask per piece type and color, plus the occupancy of each color.
+ * - Biz, Sau and Ram moves come from precomputed attack tables; Tor and Xor use
+ *   precomputed rays that are cut at the first blocker.
+ * - Per-piece state that the object pieces keep in fields is kept as masks:
+ *   Tor/Xor pieces that already moved once (they transform on their second move)
+ *   and Rams that reached the end of the board and are heading back.
+ * - A 64-bit Zobrist key is updated with every change, so a position can be
+ *   identified without comparing boards. It covers the pieces, the Tor/Xor move
+ *   counters, the Ram directions and the side to move.
+ */
+public class BitboardPosition {
+
+    // Board size
+    public static final int ROWS = 8;
+    public static final int COLS = 5;
+    public static final int SQUARES = ROWS * COLS;
+
+    // Piece types
+    public static final int RAM = 0;
+    public static final int BIZ = 1;
+    public static final int TOR = 2;
+    public static final int XOR = 3;
+    public static final int SAU = 4;
+    public static final int TYPES = 5;
+
+    // Colors
+    public static final int PINK = 0;
+    public static final int BLUE = 1;
+
+    // Marker for an empty square in typeAt() and colorAt()
+    public static final int EMPTY = -1;
+
+    // Mask with all 40 squares set
+    public static final long ALL_SQUARES = (1L << SQUARES) - 1;
+
+    // Piece names in type order, matching ChessPieces.getName()
+    private static final String[] NAMES = {"Ram", "Biz", "Tor", "Xor", "Sau"};
+
+    // Precomputed move tables
+    private static final long[] BIZ_ATTACKS = new long[SQUARES];
+    private static final long[] SAU_ATTACKS = new long[SQUARES];
+    // RAM_STEPS[direction][square], direction 0 = towards row 0, 1 = towards row 7
+    private static final long[][] RAM_STEPS = new long[2][SQUARES];
+    // RAYS[direction][square] for the eight sliding directions
+    private static final long[][] RAYS = new long[8][SQUARES];
+
+    // Ray directions. The first four walk towards higher square indices.
+    private static final int[] RAY_DX = {1, 0, 1, 1, -1, 0, -1, -1};
+    private static final int[] RAY_DY = {0, 1, 1, -1, 0, -1, -1, 1};
+    private static final int[] ORTHOGONAL = {0, 1, 4, 5};
+    private static final int[] DIAGONAL = {2, 3, 6, 7};
+
+    // Zobrist keys, generated from a fixed seed so keys stay the same between runs
+    private static final long[][] PIECE_KEYS = new long[2 * TYPES][SQUARES];
+    private static final long[] MOVED_ONCE_KEYS = new long[SQUARES];
+    private static final long[] RAM_RETURNING_KEYS = new long[SQUARES];
+    private static final long BLUE_TO_MOVE_KEY;
+
+    static {
+        long seed = 0x4B57415A414DL; // "KWAZAM"
+        for (int i = 0; i < 2 * TYPES; i++) {
+            for (int sq = 0; sq < SQUARES; sq++) {
+                seed = nextRandom(seed);
+                PIECE_KEYS[i][sq] = mix(seed);
+            }
+        }
+        for (int sq = 0; sq < SQUARES; sq++) {
+            seed = nextRandom(seed);
+            MOVED_ONCE_KEYS[sq] = mix(seed);
+            seed = nextRandom(seed);
+            RAM_RETURNING_KEYS[sq] = mix(seed);
+        }
+        BLUE_TO_MOVE_KEY = mix(nextRandom(seed));
+    }
+
+    static {
+        int[][] bizJumps = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+        for (int sq = 0; sq < SQUARES; sq++) {
+            int x = sq / COLS;
+            int y = sq % COLS;
+            for (int[] jump : bizJumps) {
+                BIZ_ATTACKS[sq] |= bit(x + jump[0], y + jump[1]);
+            }
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (dx != 0 || dy != 0) {
+                        SAU_ATTACKS[sq] |= bit(x + dx, y + dy);
+                    }
+                }
+            }
+            RAM_STEPS[0][sq] = bit(x - 1, y);
+            RAM_STEPS[1][sq] = bit(x + 1, y);
+            for (int dir = 0; dir < 8; dir++) {
+                int nx = x + RAY_DX[dir];
+                int ny = y + RAY_DY[dir];
+                while (onBoard(nx, ny)) {
+                    RAYS[dir][sq] |= 1L << square(nx, ny);
+                    nx += RAY_DX[dir];
+                    ny += RAY_DY[dir];
+                }
+            }
+        }
+    }
+
+    // pieces[color * TYPES + type] holds the squares of that piece
+    private final long[] pieces = new long[2 * TYPES];
+    private final long[] occupancy = new long[2];
+    // Tor/Xor pieces that have made one move since their last transformation
+    private long movedOnce;
+    // Rams heading back towards their own side
+    private long ramsReturning;
+    private boolean pinkToMove = true;
+    // Zobrist key of the current position
+    private long key;
+    // Material and piece-square sum, Pink minus Blue, and the Evaluation.squareScores()
+    // table it is summed with; the table only changes when the sum is rebuilt
+    private int squareScore;
+    private int[][] scores = Evaluation.squareScores();
+
+    // Undo stack for makeMove/unmakeMove, UNDO_STRIDE longs per move: movedOnce,
+    // ramsReturning, the Zobrist key, and the move packed with the moved and captured piece types
+    private static final int UNDO_STRIDE = 4;
+    private long[] undoStack = new long[UNDO_STRIDE * 256];
+    private int undoSize = 0;
+
+    /**
+     * Creates an empty position with Pink to move.
+     */
+    public BitboardPosition() {
+    }
+
+    /**
+     * Creates a copy of another position.
+     *
+     * @param other The position to copy.
+     */
+    public BitboardPosition(BitboardPosition other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Overwrites this position with the contents of another one.
+     *
+     * @param other The position to copy.
+     */
+    public void copyFrom(BitboardPosition other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        occupancy[PINK] = other.occupancy[PINK];
+        occupancy[BLUE] = other.occupancy[BLUE];
+        movedOnce = other.movedOnce;
+        ramsReturning = other.ramsReturning;
+        pinkToMove = other.pinkToMove;
+        key = other.key;
+        squareScore = other.squareScore;
+        scores = other.scores;
+        undoSize = 0;
+        if (scores != Evaluation.squareScores()) {
+            // Summed before the weights were last loaded
+            rescore();
+        }
+    }
+
+    /**
+     * Sets up the standard Kwazam starting position.
+     */
+    public void setStartPosition() {
+        clear();
+        put(square(7, 0), PINK, TOR);
+        put(square(7, 1), PINK, BIZ);
+        put(square(7, 2), PINK, SAU);
+        put(square(7, 3), PINK, BIZ);
+        put(square(7, 4), PINK, XOR);
+        put(square(0, 0), BLUE, XOR);
+        put(square(0, 1), BLUE, BIZ);
+        put(square(0, 2), BLUE, SAU);
+        put(square(0, 3), BLUE, BIZ);
+        put(square(0, 4), BLUE, TOR);
+        for (int y = 0; y < COLS; y++) {
+            put(square(6, y), PINK, RAM);
+            put(square(1, y), BLUE, RAM);
+        }
+    }
+
+    /**
+     * Removes every piece and gives the turn to Pink.
+     */
+    public void clear() {
+        java.util.Arrays.fill(pieces, 0L);
+        occupancy[PINK] = 0L;
+        occupancy[BLUE] = 0L;
+        movedOnce = 0L;
+        ramsReturning = 0L;
+        pinkToMove = true;
+        key = 0L;
+        squareScore = 0;
+        scores = Evaluation.squareScores();
+        undoSize = 0;
+    }
+
+    /**
+     * Rebuilds the position from an object board.
+     *
+     * @param board       The board as seen on screen.
+     * @param flipped     True if the board is shown from Blue's side (Blue on rows 6-7).
+     * @param pinkToMove  True if it is Pink's turn.
+     */
+    public void loadFrom(ChessPieces[][] board, boolean flipped, boolean pinkToMove) {
+        clear();
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLS; j++) {
+                ChessPieces piece = board[i][j];
+                if (piece != null) {
+                    int sq = flipped ? mirror(square(i, j)) : square(i, j);
+                    int color = colorOf(piece.getColor());
+                    int type = typeOf(piece.getName());
+                    put(sq, color, type);
+                    // A Ram sitting on the far row can only go back
+                    if (type == RAM && (sq / COLS) == (color == PINK ? 0 : ROWS - 1)) {
+                        setRamReturning(sq);
+                    }
+                }
+            }
+        }
+        setPinkToMove(pinkToMove);
+    }
+
+    /**
+     * Places a piece on an empty square.
+     *
+     * @param sq    The square index.
+     * @param color PINK or BLUE.
+     * @param type  The piece type.
+     */
+    public void put(int sq, int color, int type) {
+        long b = 1L << sq;
+        pieces[color * TYPES + type] |= b;
+        occupancy[color] |= b;
+        key ^= PIECE_KEYS[color * TYPES + type][sq];
+        squareScore += scores[color * TYPES + type][sq];
+    }
+
+    /**
+     * Removes whatever piece stands on a square, together with its move state.
+     *
+     * @param sq The square index.
+     */
+    public void remove(int sq) {
+        long b = 1L << sq;
+        if (((occupancy[PINK] | occupancy[BLUE]) & b) == 0) {
+            return;
+        }
+        int color = (occupancy[PINK] & b) != 0 ? PINK : BLUE;
+        int index = color * TYPES + typeAt(sq);
+        pieces[index] &= ~b;
+        occupancy[color] &= ~b;
+        key ^= PIECE_KEYS[index][sq];
+        squareScore -= scores[index][sq];
+        if ((movedOnce & b) != 0) {
+            movedOnce &= ~b;
+            key ^= MOVED_ONCE_KEYS[sq];
+        }
+        if ((ramsReturning & b) != 0) {
+            ramsReturning &= ~b;
+            key ^= RAM_RETURNING_KEYS[sq];
+        }
+    }
+
+    /**
+     * Returns the squares the piece on a square can reach, ignoring whose turn it is.
+     * Squares occupied by pieces of the same color are excluded.
+     *
+     * @param sq The square index of the piece.
+     * @return A mask of destination squares, or 0 if the square is empty.
+     */
+    public long attacks(int sq) {
+        long b = 1L << sq;
+        int color;
+        if ((occupancy[PINK] & b) != 0) {
+            color = PINK;
+        } else if ((occupancy[BLUE] & b) != 0) {
+            color = BLUE;
+        } else {
+            return 0L;
+        }
+        return attacks(sq, color, typeAt(sq));
+    }
+
+    /**
+     * Returns the destination squares of a piece whose color and type are already known.
+     *
+     * @param sq    The square index of the piece.
+     * @param color PINK or BLUE.
+     * @param type  The piece type.
+     * @return A mask of destination squares.
+     */
+    public long attacks(int sq, int color, int type) {
+        long occupied = occupancy[PINK] | occupancy[BLUE];
+        long targets;
+        switch (type) {
+            case RAM:
+                targets = RAM_STEPS[ramDirection(color, (ramsReturning & (1L << sq)) != 0)][sq];
+                break;
+            case BIZ:
+                targets = BIZ_ATTACKS[sq];
+                break;
+            case TOR:
+                targets = slidingAttacks(sq, occupied, ORTHOGONAL);
+                break;
+            case XOR:
+                targets = slidingAttacks(sq, occupied, DIAGONAL);
+                break;
+            default:
+                targets = SAU_ATTACKS[sq];
+                break;
+        }
+        return targets & ~occupancy[color];
+    }
+
+    /**
+     * Checks whether the side to move may move the piece on one square to another.
+     *
+     * @param from The square of the piece to move.
+     * @param to   The destination square.
+     * @return True if the move follows the Kwazam rules.
+     */
+    public boolean isLegalMove(int from, int to) {
+        if ((occupancy[sideToMove()] & (1L << from)) == 0 || isGameOver()) {
+            return false;
+        }
+        return (attacks(from) & (1L << to)) != 0;
+    }
+
+    /**
+     * Plays a move that is known to be legal. Captures, the Tor/Xor transformation
+     * on a piece's second move and the Ram turning around are applied here, and the
+     * turn passes to the other side.
+     *
+     * @param from The square of the piece to move.
+     * @param to   The destination square.
+     */
+    public void move(int from, int to) {
+        long fromBit = 1L << from;
+        long toBit = 1L << to;
+        int color = sideToMove();
+        int type = typeAt(from);
+        boolean armed = (movedOnce & fromBit) != 0;
+        boolean returning = (ramsReturning & fromBit) != 0;
+
+        remove(to);
+        remove(from);
+
+        if (type == TOR || type == XOR) {
+            if (armed) {
+                // Second move since the last transformation: Tor <-> Xor
+                type = (type == TOR) ? XOR : TOR;
+            } else {
+                movedOnce |= toBit;
+                key ^= MOVED_ONCE_KEYS[to];
+            }
+        }
+        put(to, color, type);
+
+        if (type == RAM) {
+            int row = to / COLS;
+            int lastRow = ramDirection(color, returning) == 0 ? 0 : ROWS - 1;
+            if (row == lastRow) {
+                returning = !returning;
+            }
+            if (returning) {
+                setRamReturning(to);
+            }
+        }
+        pinkToMove = !pinkToMove;
+        key ^= BLUE_TO_MOVE_KEY;
+        assert squareScore == computeScore() : "squareScore drifted after " + from + "-" + to;
+    }
+
+    /**
+     * Plays a legal move and remembers what is needed to take it back.
+     * Nothing is allocated unless the undo stack has to grow.
+     *
+     * @param move A move encoded with Move.encode().
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (undoSize + UNDO_STRIDE > undoStack.length) {
+            undoStack = java.util.Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        undoStack[undoSize] = movedOnce;
+        undoStack[undoSize + 1] = ramsReturning;
+        undoStack[undoSize + 2] = key;
+        undoStack[undoSize + 3] = move | ((long) typeAt(from) << 12) | ((long) (typeAt(to) + 1) << 15);
+        undoSize += UNDO_STRIDE;
+        move(from, to);
+    }
+
+    /**
+     * Takes back the last move played with makeMove().
+     */
+    public void unmakeMove() {
+        undoSize -= UNDO_STRIDE;
+        long packed = undoStack[undoSize + 3];
+        int from = Move.from((int) packed);
+        int to = Move.to((int) packed);
+        int movedType = (int) (packed >>> 12) & 7;
+        int capturedType = (int) (packed >>> 15 & 7) - 1;
+
+        pinkToMove = !pinkToMove;
+        int color = sideToMove();
+        remove(to);
+        put(from, color, movedType);
+        if (capturedType != EMPTY) {
+            put(to, 1 - color, capturedType);
+        }
+        movedOnce = undoStack[undoSize];
+        ramsReturning = undoStack[undoSize + 1];
+        key = undoStack[undoSize + 2];
+        assert squareScore == computeScore() : "squareScore drifted taking back " + from + "-" + to;
+    }
+
+    /**
+     * Returns the last move played with makeMove() that has not been taken back.
+     *
+     * @return The move, or Move.NONE if there is nothing to take back.
+     */
+    public int lastMove() {
+        return undoSize == 0 ? Move.NONE : (int) (undoStack[undoSize - 1] & 0xFFF);
+    }
+
+    /**
+     * Returns the number of moves that can currently be taken back.
+     */
+    public int undoDepth() {
+        return undoSize / UNDO_STRIDE;
+    }
+
+    /**
+     * Checks whether either Sau has been captured.
+     *
+     * @return True if the game is over.
+     */
+    public boolean isGameOver() {
+        return pieces[PINK * TYPES + SAU] == 0 || pieces[BLUE * TYPES + SAU] == 0;
+    }
+
+    /**
+     * Returns the type of the piece on a square.
+     *
+     * @param sq The square index.
+     * @return The piece type, or EMPTY.
+     */
+    public int typeAt(int sq) {
+        long b = 1L << sq;
+        for (int type = 0; type < TYPES; type++) {
+            if (((pieces[type] | pieces[TYPES + type]) & b) != 0) {
+                return type;
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Returns the color of the piece on a square.
+     *
+     * @param sq The square index.
+     * @return PINK, BLUE or EMPTY.
+     */
+    public int colorAt(int sq) {
+        long b = 1L << sq;
+        if ((occupancy[PINK] & b) != 0) {
+            return PINK;
+        }
+        return (occupancy[BLUE] & b) != 0 ? BLUE : EMPTY;
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[color * TYPES + type];
+    }
+
+    public long occupancy(int color) {
+        return occupancy[color];
+    }
+
+    public long occupied() {
+        return occupancy[PINK] | occupancy[BLUE];
+    }
+
+    public long movedOnce() {
+        return movedOnce;
+    }
+
+    public long ramsReturning() {
+        return ramsReturning;
+    }
+
+    public boolean isPinkToMove() {
+        return pinkToMove;
+    }
+
+    public void setPinkToMove(boolean pinkToMove) {
+        if (this.pinkToMove != pinkToMove) {
+            this.pinkToMove = pinkToMove;
+            key ^= BLUE_TO_MOVE_KEY;
+        }
+    }
+
+    /**
+     * Returns the Zobrist key of the position.
+     */
+    public long key() {
+        return key;
+    }
+
+    /**
+     * Computes the Zobrist key from scratch. It always equals key() and is only
+     * meant for checking the incremental updates.
+     */
+    public long computeKey() {
+        long result = pinkToMove ? 0L : BLUE_TO_MOVE_KEY;
+        for (int i = 0; i < 2 * TYPES; i++) {
+            for (long b = pieces[i]; b != 0; b &= b - 1) {
+                result ^= PIECE_KEYS[i][Long.numberOfTrailingZeros(b)];
+            }
+        }
+        for (long b = movedOnce; b != 0; b &= b - 1) {
+            result ^= MOVED_ONCE_KEYS[Long.numberOfTrailingZeros(b)];
+        }
+        for (long b = ramsReturning; b != 0; b &= b - 1) {
+            result ^= RAM_RETURNING_KEYS[Long.numberOfTrailingZeros(b)];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the material and piece-square sum of the position, Pink minus Blue.
+     * It is kept up to date by every put() and remove(), so moves, captures and
+     * Tor/Xor transformations update it incrementally.
+     */
+    public int squareScore() {
+        return squareScore;
+    }
+
+    /**
+     * Computes squareScore() from scratch with the weights the position is summed with.
+     * Only meant for checking the incremental updates: with assertions enabled (-ea)
+     * every move() and unmakeMove() compares the running sum with it.
+     */
+    public int computeScore() {
+        int result = 0;
+        for (int i = 0; i < 2 * TYPES; i++) {
+            for (long b = pieces[i]; b != 0; b &= b - 1) {
+                result += scores[i][Long.numberOfTrailingZeros(b)];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sums squareScore() again with the current evaluation weights, e.g. after
+     * Evaluation.loadWeights(). clear() and copyFrom() already do this.
+     */
+    public void rescore() {
+        scores = Evaluation.squareScores();
+        squareScore = computeScore();
+    }
+
+    /**
+     * Marks the Ram on a square as heading back towards its own side.
+     */
+    public void setRamReturning(int sq) {
+        if ((ramsReturning & (1L << sq)) == 0) {
+            ramsReturning |= 1L << sq;
+            key ^= RAM_RETURNING_KEYS[sq];
+        }
+    }
+
+    /**
+     * Marks the Tor or Xor on a square as having moved once since its last transformation.
+     */
+    public void setMovedOnce(int sq) {
+        if ((movedOnce & (1L << sq)) == 0) {
+            movedOnce |= 1L << sq;
+            key ^= MOVED_ONCE_KEYS[sq];
+        }
+    }
+
+    public int sideToMove() {
+        return pinkToMove ? PINK : BLUE;
+    }
+
+    // Walks each ray and cuts it at the first occupied square (which stays included)
+    private static long slidingAttacks(int sq, long occupied, int[] directions) {
+        long result = 0L;
+        for (int dir : directions) {
+            long ray = RAYS[dir][sq];
+            long blockers = ray & occupied;
+            if (blockers != 0) {
+                int first = dir < 4
+                        ? Long.numberOfTrailingZeros(blockers)
+                        : 63 - Long.numberOfLeadingZeros(blockers);
+                ray ^= RAYS[dir][first];
+            }
+            result |= ray;
+        }
+        return result;
+    }
+
+    // Pink Rams start by walking towards row 0, Blue Rams towards row 7
+    private static int ramDirection(int color, boolean returning) {
+        int forward = (color == PINK) ? 0 : 1;
+        return returning ? 1 - forward : forward;
+    }
+
+    // SplitMix64 step and finalizer used to fill the Zobrist tables
+    private static long nextRandom(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static boolean onBoard(int x, int y) {
+        return x >= 0 && x < ROWS && y >= 0 && y < COLS;
+    }
+
+    private static long bit(int x, int y) {
+        return onBoard(x, y) ? 1L << square(x, y) : 0L;
+    }
+
+    /**
+     * Converts board coordinates into a square index.
+     */
+    public static int square(int x, int y) {
+        return x * COLS + y;
+    }
+
+    /**
+     * Returns the same square seen from the other side of the board.
+     */
+    public static int mirror(int sq) {
+        return (ROWS - 1 - sq / COLS) * COLS + sq % COLS;
+    }
+
+    public static int colorOf(ChessPieces.Color color) {
+        return color == ChessPieces.Color.PINK ? PINK : BLUE;
+    }
+
+    public static ChessPieces.Color toColor(int color) {
+        return color == PINK ? ChessPieces.Color.PINK : ChessPieces.Color.BLUE;
+    }
+
+    /**
+     * Maps a piece name as returned by ChessPieces.getName() to a piece type.
+     */
+    public static int typeOf(String name) {
+        for (int type = 0; type < TYPES; type++) {
+            if (NAMES[type].equalsIgnoreCase(name)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Invalid piece name: " + name);
+    }
+
+    public static String nameOf(int type) {
+        return NAMES[type];
+    }
+}
@@ -35,8 +35,11 @@ public class Biz extends ChessPieces {
      */
     @Override
     public boolean correctMove(int newX, int newY, ChessPieces[][] board) {
-        System.out.println(this.getName() + " " + this.getColor() + ":");
-        System.out.println("Moving from (" + getX() + ", " + getY() + ") to (" + newX + ", " + newY + ")");
+        GameJournal journal = GameJournal.getDefault();
+        if (journal.isEnabled(GameJournal.DEBUG)) {
+            journal.record(GameJournal.DEBUG, GameJournal.RULE_CHECK, GameJournal.pieceCode(this),
+                    getX() * 5 + getY(), newX * 5 + newY, -1);
+        }
 
         // Calculate movement differences
         int dx = Math.abs(newX - getX());
@@ -48,7 +51,10 @@ public class Biz extends ChessPieces {
         }
 
         // Invalid move: Not an L-shape
-        System.out.println("Move invalid: Not an L-shaped move.");
+        if (journal.isEnabled(GameJournal.DEBUG)) {
+            journal.record(GameJournal.DEBUG, GameJournal.REJECT, GameJournal.pieceCode(this),
+                    getX() * 5 + getY(), newX * 5 + newY, GameJournal.REASON_NOT_L_SHAPE);
+        }
         return false;
     }
 
@@ -0,0 +1,7 @@
+/**
+ * Listener that is told which squares of the board changed.
+ * Squares are BitboardPosition indices seen from Pink's side, one bit per square.
+ */
+public interface BoardListener {
+    void squaresChanged(long squares);
+}
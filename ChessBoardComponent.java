@@ -0,0 +1,240 @@
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.VolatileImage;
+
+/**
+ * Purpose:
+ * Draws the board (squares, highlights and pieces) as one component and turns mouse
+ * clicks into board coordinates. Used by ChessView in place of a grid of buttons.
+ *
+ * Design:
+ * - The board is drawn into a back buffer, a VolatileImage the size of the component
+ *   that can stay in video memory. Only tiles marked as changed are drawn into it
+ *   again; a paint then copies the buffer to the screen, clipped to the repainted area.
+ * - repaintSquares() marks the changed tiles and asks Swing to repaint just their
+ *   rectangles. A move on its own (stepping through a replay, taking a move back)
+ *   repaints two tiles. In a game every turn ends with the board flip, which moves
+ *   every piece on screen, so a turn repaints all 40 tiles; so does loading a
+ *   position, including a replay seek that starts from a checkpoint.
+ * - If the buffer is lost (e.g. the display mode changed) or the component is resized,
+ *   a new buffer is made and every tile is drawn into it.
+ * - Piece images come scaled to the tile size from SpriteCache.
+ * - Squares are given in Pink's board coordinates, like the bitboard's, and mapped to
+ *   the screen with the model's flip. A clicked tile is reported in screen coordinates,
+ *   as ChessModel.executeMovement expects.
+ */
+public class ChessBoardComponent extends JComponent {
+
+    /**
+     * Receives clicks on the board.
+     */
+    public interface TileListener {
+        /**
+         * @param x The screen row of the clicked tile (0 at the top).
+         * @param y The column of the clicked tile.
+         */
+        void tileClicked(int x, int y);
+    }
+
+    private static final int ROWS = BitboardPosition.ROWS;
+    private static final int COLS = BitboardPosition.COLS;
+    private static final Color LIGHT_COLOR = Color.WHITE;
+    private static final Color DARK_COLOR = Color.BLACK;
+    private static final Color SELECTED_COLOR = new Color(255, 255, 102); // Tile of the selected piece
+    private static final Color DESTINATION_COLOR = new Color(144, 238, 144); // Tiles the selected piece can move to
+    private static final int PIECE_MARGIN = 4; // Pixels between a piece and the edge of its tile
+
+    private final ChessModel model;
+    private TileListener tileListener;
+
+    private VolatileImage backBuffer;
+    private long dirtyTiles = BitboardPosition.ALL_SQUARES; // Tiles (by screen index) to draw into the buffer again
+    private int selectedSquare = -1;   // In Pink's board coordinates
+    private long destinationSquares = 0;
+
+    public ChessBoardComponent(ChessModel model) {
+        this.model = model;
+        setOpaque(true);
+        setPreferredSize(new Dimension(COLS * 100, ROWS * 100));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e) || tileListener == null) {
+                    return;
+                }
+                int tileWidth = getWidth() / COLS;
+                int tileHeight = getHeight() / ROWS;
+                if (tileWidth == 0 || tileHeight == 0) {
+                    return;
+                }
+                int x = e.getY() / tileHeight;
+                int y = e.getX() / tileWidth;
+                if (x < ROWS && y < COLS) {
+                    tileListener.tileClicked(x, y);
+                }
+            }
+        });
+    }
+
+    public void setTileListener(TileListener tileListener) {
+        this.tileListener = tileListener;
+    }
+
+    /**
+     * Redraws the tiles showing some squares. Must be called on the event thread.
+     *
+     * @param squares The squares, in Pink's board coordinates.
+     */
+    public void repaintSquares(long squares) {
+        repaintTiles(toTiles(squares));
+    }
+
+    /**
+     * Highlights a selected piece and the squares it can move to, replacing the
+     * previous highlight. Must be called on the event thread.
+     *
+     * @param square       The square of the selected piece, or -1 for no selection.
+     * @param destinations The squares to mark as destinations.
+     */
+    public void setSelection(int square, long destinations) {
+        long changed = destinationSquares | destinations;
+        if (selectedSquare >= 0) {
+            changed |= 1L << selectedSquare;
+        }
+        if (square >= 0) {
+            changed |= 1L << square;
+        }
+        selectedSquare = square;
+        destinationSquares = destinations;
+        repaintSquares(changed);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        if (configuration == null) {
+            // Not on a screen (e.g. printed): draw straight away
+            drawBoard((Graphics2D) g, width, height, BitboardPosition.ALL_SQUARES, true);
+            return;
+        }
+        do {
+            boolean fresh = false;
+            if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height) {
+                backBuffer = createBackBuffer(configuration, width, height);
+                fresh = true;
+            }
+            int status = backBuffer.validate(configuration);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                backBuffer = createBackBuffer(configuration, width, height);
+                fresh = true;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                // Contents are gone, so every tile is drawn again
+                fresh = true;
+            }
+            long tiles = fresh ? BitboardPosition.ALL_SQUARES : dirtyTiles;
+            if (tiles != 0) {
+                Graphics2D buffer = backBuffer.createGraphics();
+                try {
+                    drawBoard(buffer, width, height, tiles, fresh);
+                } finally {
+                    buffer.dispose();
+                }
+                dirtyTiles = 0;
+            }
+            // Only the clipped area is copied
+            g.drawImage(backBuffer, 0, 0, null);
+        } while (backBuffer.contentsLost());
+    }
+
+    private VolatileImage createBackBuffer(GraphicsConfiguration configuration, int width, int height) {
+        if (backBuffer != null) {
+            backBuffer.flush();
+        }
+        return configuration.createCompatibleVolatileImage(width, height);
+    }
+
+    // Marks tiles as changed and repaints their rectangles
+    private void repaintTiles(long tiles) {
+        dirtyTiles |= tiles;
+        int tileWidth = getWidth() / COLS;
+        int tileHeight = getHeight() / ROWS;
+        if (tiles == BitboardPosition.ALL_SQUARES) {
+            // A flip or load: every tile changed, one repaint covers them all
+            repaint();
+            return;
+        }
+        while (tiles != 0) {
+            int tile = Long.numberOfTrailingZeros(tiles);
+            tiles &= tiles - 1;
+            repaint((tile % COLS) * tileWidth, (tile / COLS) * tileHeight, tileWidth, tileHeight);
+        }
+    }
+
+    // Draws tiles; with background set, also the strips right and below the tiles
+    private void drawBoard(Graphics2D g, int width, int height, long tiles, boolean background) {
+        int tileWidth = width / COLS;
+        int tileHeight = height / ROWS;
+        if (background) {
+            g.setColor(getBackground() != null ? getBackground() : Color.DARK_GRAY);
+            g.fillRect(0, 0, width, height);
+        }
+        int pieceSize = Math.max(1, Math.min(tileWidth, tileHeight) - 2 * PIECE_MARGIN);
+        BitboardPosition position = model.getPosition();
+        boolean flipped = model.isFlipped();
+        while (tiles != 0) {
+            int tile = Long.numberOfTrailingZeros(tiles);
+            tiles &= tiles - 1;
+            int square = flipped ? BitboardPosition.mirror(tile) : tile;
+            int left = (tile % COLS) * tileWidth;
+            int top = (tile / COLS) * tileHeight;
+
+            g.setColor(tileColor(tile, square));
+            g.fillRect(left, top, tileWidth, tileHeight);
+
+            int type = position.typeAt(square);
+            if (type != BitboardPosition.EMPTY) {
+                Image piece = SpriteCache.getInstance().getImage(type, position.colorAt(square), pieceSize);
+                if (piece != null) {
+                    g.drawImage(piece, left + (tileWidth - pieceSize) / 2, top + (tileHeight - pieceSize) / 2, null);
+                }
+            }
+        }
+    }
+
+    private Color tileColor(int tile, int square) {
+        if (square == selectedSquare) {
+            return SELECTED_COLOR;
+        }
+        if ((destinationSquares & (1L << square)) != 0) {
+            return DESTINATION_COLOR;
+        }
+        return (tile / COLS + tile % COLS) % 2 == 0 ? LIGHT_COLOR : DARK_COLOR;
+    }
+
+    // Maps squares in Pink's board coordinates to screen tiles
+    private long toTiles(long squares) {
+        if (!model.isFlipped() || squares == BitboardPosition.ALL_SQUARES) {
+            return squares;
+        }
+        long tiles = 0;
+        while (squares != 0) {
+            int sq = Long.numberOfTrailingZeros(squares);
+            squares &= squares - 1;
+            tiles |= 1L << BitboardPosition.mirror(sq);
+        }
+        return tiles;
+    }
+}
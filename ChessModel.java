@@ -1,4 +1,4 @@
-import javax.swing.JOptionPane;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * The ChessModel class is responsible for managing the game's data and state.
@@ -6,11 +6,70 @@ import javax.swing.JOptionPane;
  * piece movement, initialization, and resetting the game. This class adheres
  * to the principles of object-oriented design by ensuring single responsibility
  * and encapsulation of game logic.
+ *
+ * The board is stored from Pink's side and piece coordinates are kept in that
+ * orientation. Flipping the board only changes the order in which rows are shown,
+ * and moves can be played and taken back in place with makeMove/unmakeMove.
+ *
+ * The model itself is only used from one thread (the event thread in the game).
+ * Other threads read the position through getSnapshot(), which returns an immutable
+ * copy published after every completed change.
  */
 public class ChessModel {
 
-    // 2D array representing the chessboard (8 rows x 5 columns)
-    private ChessPieces[][] chessPiecesBoard = new ChessPieces[8][5];
+    // 2D array representing the chessboard (8 rows x 5 columns), always seen from Pink's side
+    private final ChessPieces[][] chessPiecesBoard = new ChessPieces[8][5];
+
+    // The same rows in the order they are shown on screen. Flipping the board only
+    // reorders these row references, no piece is copied.
+    private final ChessPieces[][] screenBoard = new ChessPieces[8][];
+
+    // Object side of the undo stack: the moved and the captured piece for every move.
+    // The bitboard keeps the rest (captured type, Tor/Xor counters, Ram directions, turn).
+    private ChessPieces[] undoPieces = new ChessPieces[2 * 256];
+    private int undoSize = 0;
+
+    // Moves played since the board was last set up, started lazily on the first move
+    private GameRecord record = null;
+
+    // Tor and Xor objects stored in pairs with the object they turn into. A transformation
+    // swaps in the other object of the pair, so after the first one nothing is allocated.
+    private ChessPieces[] twins = new ChessPieces[16];
+    private int twinCount = 0;
+
+    // Views that are told which squares changed
+    private BoardListener[] boardListeners = new BoardListener[0];
+
+    // Open beginUpdate() calls, and the squares changed since the first one
+    private int updateDepth = 0;
+    private long pendingSquares = 0;
+
+    // Event journal for selections, moves, captures, transformations and turns
+    private GameJournal journal = GameJournal.getDefault();
+
+    // Bitboard copy of the board that the rule checks run on
+    private final BitboardPosition position = new BitboardPosition();
+
+    // Legal destinations of the pieces of the player to move, shared by tryMove() and the highlighting
+    private final LegalMoveCache legalMoves = new LegalMoveCache(position);
+
+    // Latest immutable copy of the position, replaced after every completed change;
+    // the only part of the model that other threads may read
+    private final AtomicReference<PositionSnapshot> snapshot = new AtomicReference<>();
+    private long snapshotSequence = 0;
+
+    // Observers of every completed change, and the change to describe in the next event:
+    // one move or undo, or anything else (then a POSITION event is sent)
+    private final MoveEventStream events = new MoveEventStream();
+    private int changeCount = 0;
+    private MoveEvent.Kind changeKind;
+    private int changeMove;
+    private int changePiece;
+    private int changeCaptured;
+    private int changeResult;
+
+    // True while the board array is shown from Blue's side (after a flip)
+    private boolean flipped = false;
 
     // The currently selected chess piece (null if no piece is selected)
     private ChessPieces selectedPiece = null;
@@ -28,23 +87,32 @@ public class ChessModel {
      */
     public ChessModel() {
         this.isPinkTurn = true; // Initialize to Player 1's turn (Pink)
+        updateScreenRows();
+        publishSnapshot();
     }
 
     /**
      * Getter method to retrieve the current state of the chessboard.
+     * The rows are in screen order, so the player to move sits at the bottom.
      * 
      * @return The 2D array representing the chessboard.
      */
     public ChessPieces[][] getChessBoard() {
-        return chessPiecesBoard;
+        return screenBoard;
     }
 
     /**
      * Starts a new game by resetting and initializing the chess pieces.
      */
     public void startNewGame() {
-        resetGame();
-        initializePieces();
+        // Observers see the new game as one change
+        beginUpdate();
+        try {
+            resetGame();
+            initializePieces();
+        } finally {
+            endUpdate();
+        }
     }
 
     /**
@@ -94,7 +162,13 @@ public class ChessModel {
      * @param y     The y-coordinate on the board.
      */
     public void placePiece(ChessPieces piece, int x, int y) {
-        chessPiecesBoard[x][y] = piece;
+        screenBoard[x][y] = piece;
+        // Editing the board starts a new record
+        record = null;
+        int sq = toSquare(x, y);
+        position.remove(sq);
+        position.put(sq, BitboardPosition.colorOf(piece.getColor()), BitboardPosition.typeOf(piece.getName()));
+        fireSquaresChanged(1L << sq);
     }
 
     /**
@@ -105,55 +179,195 @@ public class ChessModel {
     // Vice versa
     private void toggleTurn() {
         isPinkTurn = !isPinkTurn;
+        position.setPinkToMove(isPinkTurn);
         // Untuk debug and see dia baca turn siapa
-        System.out.println("Next turn: " + (isPinkTurn ? "Pink" : "Blue"));
+        journal.record(GameJournal.MOVES, GameJournal.TURN, -1, -1, -1,
+                isPinkTurn ? BitboardPosition.PINK : BitboardPosition.BLUE);
+    }
+
+    /**
+     * Plays a legal move in place. The captured piece, the Tor/Xor counters, the Ram
+     * directions and the turn are pushed on the undo stack, so the move can be taken
+     * back with unmakeMove().
+     * Outside a beginUpdate()/endUpdate() block the move is a completed change and
+     * allocates one PositionSnapshot; inside one, the whole block allocates one.
+     * 
+     * @param move The move, encoded with Move.encode() in Pink's board coordinates.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        ChessPieces moving = pieceAt(from);
+        ChessPieces captured = pieceAt(to);
+        if (2 * undoSize + 2 > undoPieces.length) {
+            undoPieces = java.util.Arrays.copyOf(undoPieces, undoPieces.length * 2);
+        }
+        undoPieces[2 * undoSize] = moving;
+        undoPieces[2 * undoSize + 1] = captured;
+        undoSize++;
+        if (record == null) {
+            record = new GameRecord(position);
+        }
+        record.add(move);
+
+        int movingType = BitboardPosition.EMPTY;
+        int capturedType = BitboardPosition.EMPTY;
+        if (events.hasSubscribers()) {
+            movingType = position.typeAt(from);
+            capturedType = position.typeAt(to);
+        }
+
+        // The bitboard applies the capture, Ram turn-around and Tor/Xor counter
+        position.makeMove(move);
+
+        // The bitboard decides whether a Tor or Xor transforms; unmakeMove puts the
+        // original object back, so the transformation is undone with the move
+        ChessPieces placed = moving;
+        int newType = position.typeAt(to);
+        if ((moving instanceof Tor && newType == BitboardPosition.XOR)
+                || (moving instanceof Xor && newType == BitboardPosition.TOR)) {
+            placed = twinOf(moving, newType);
+        }
+        if (journal.isEnabled(GameJournal.MOVES)) {
+            int code = GameJournal.pieceCode(moving);
+            journal.record(GameJournal.MOVES, GameJournal.MOVE, code, from, to, -1);
+            if (captured != null) {
+                journal.record(GameJournal.MOVES, GameJournal.CAPTURE, code, from, to, GameJournal.pieceCode(captured));
+            }
+            if (placed != moving) {
+                journal.record(GameJournal.MOVES, GameJournal.TRANSFORM, code, to, -1, newType);
+            }
+        }
+        setPieceAt(from, null);
+        setPieceAt(to, placed);
+        placed.setPosition(to / 5, to % 5);
+        toggleTurn();
+        noteChange(MoveEvent.Kind.MOVE, move, movingType, capturedType, newType);
+        // A capture or transformation only ever touches the destination square
+        fireSquaresChanged((1L << from) | (1L << to));
+    }
+
+    /**
+     * Takes back the last move played with makeMove(), including a capture
+     * and a Tor/Xor transformation. Like makeMove(), it allocates one
+     * PositionSnapshot unless it runs inside a beginUpdate()/endUpdate() block.
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            return;
+        }
+        undoSize--;
+        ChessPieces moving = undoPieces[2 * undoSize];
+        ChessPieces captured = undoPieces[2 * undoSize + 1];
+        undoPieces[2 * undoSize] = null;
+        undoPieces[2 * undoSize + 1] = null;
+        if (record != null) {
+            record.truncate(record.size() - 1);
+        }
+
+        int move = position.lastMove();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        position.unmakeMove();
+
+        setPieceAt(to, captured);
+        setPieceAt(from, moving);
+        moving.setPosition(from / 5, from % 5);
+        toggleTurn();
+        selectedPiece = null;
+        if (events.hasSubscribers()) {
+            // The moved piece as it is again before the move, and the piece put back
+            int restoredType = position.typeAt(from);
+            noteChange(MoveEvent.Kind.UNDO, move, restoredType, position.typeAt(to), restoredType);
+        }
+        fireSquaresChanged((1L << from) | (1L << to));
+    }
+
+    /**
+     * Returns the game played so far as a starting position and a move list.
+     * The starting position is the board as it was last set up or loaded.
+     * 
+     * @return A copy of the record; later moves do not change it.
+     */
+    public GameRecord getGameRecord() {
+        return record != null ? new GameRecord(record) : new GameRecord(position);
+    }
+
+    /**
+     * Returns the number of moves that can be taken back.
+     */
+    public int getUndoDepth() {
+        return undoSize;
     }
     
     
     /**
-     * Handles a player's move. This includes selecting a piece, validating
-     * the move, and updating the board if the move is valid.
+     * Handles a player's click. The first click selects a piece, the second one
+     * tries to move it there. Nothing is shown to the player; the caller decides
+     * how to report a rejected click.
      * 
      * @param x The x-coordinate of the target position.
      * @param y The y-coordinate of the target position.
-     * @return True if the move was successful, false otherwise.
+     * @return What happened; isMove() is true if a move was played.
      */
-    public boolean executeMovement(int x, int y) {
+    public MoveResult executeMovement(int x, int y) {
         if (selectedPiece == null) {
             // Select a piece if none is currently selected
-            ChessPieces piece = chessPiecesBoard[x][y];
+            ChessPieces piece = screenBoard[x][y];
             if (piece == null) {
-                JOptionPane.showMessageDialog(null, "No piece at this position to select.");
-            } else {
-                if (piece.isActive() && ((isPinkTurn && piece.getColor() == ChessPieces.Color.PINK) ||
-                    (!isPinkTurn && piece.getColor() == ChessPieces.Color.BLUE))) {
-                    selectedPiece = piece;
-                    selectedX = x;
-                    selectedY = y;
-                    return false; // Selection successful
-                } else {
-                    JOptionPane.showMessageDialog(null, "It is not your turn.");
-                }
+                return MoveResult.NO_PIECE;
             }
-        } else {
-            // Attempt to move the selected piece
-            ChessPieces targetPiece = chessPiecesBoard[x][y];
-            if (targetPiece != null && targetPiece.getColor() == selectedPiece.getColor()) {
-                JOptionPane.showMessageDialog(null, "Cannot move to a position occupied by your own piece.");
-            } else if (selectedPiece.correctMove(x, y, chessPiecesBoard)) {
-                chessPiecesBoard[selectedX][selectedY] = null;
-                placePiece(selectedPiece, x, y);
-                selectedPiece.setPosition(x, y);
-                // Setiap kali successfully gerak, dia akan tukar turn
-                toggleTurn(); 
-                selectedPiece = null;
-                return true; // Move successful
-            } else {
-                JOptionPane.showMessageDialog(null, "Invalid move for " + selectedPiece.getName());
+            if (position.isGameOver()) {
+                return MoveResult.GAME_OVER;
+            }
+            if (piece.isActive() && ((isPinkTurn && piece.getColor() == ChessPieces.Color.PINK) ||
+                (!isPinkTurn && piece.getColor() == ChessPieces.Color.BLUE))) {
+                selectedPiece = piece;
+                selectedX = x;
+                selectedY = y;
+                if (journal.isEnabled(GameJournal.MOVES)) {
+                    journal.record(GameJournal.MOVES, GameJournal.SELECT, GameJournal.pieceCode(piece),
+                            toSquare(x, y), -1, -1);
+                }
+                return MoveResult.SELECTED;
             }
-            selectedPiece = null; // Deselect piece
+            return MoveResult.NOT_YOUR_TURN;
         }
-        return false;
+        // Attempt to move the selected piece; it is deselected whatever the outcome
+        int from = toSquare(selectedX, selectedY);
+        selectedPiece = null;
+        return tryMove(from, toSquare(x, y));
+    }
+
+    /**
+     * Plays a move for the player to move if the rules allow it.
+     * 
+     * @param from The square of the piece to move, in Pink's board coordinates.
+     * @param to   The destination square, in Pink's board coordinates.
+     * @return MOVED or GAME_WON if the move was played, otherwise why it was refused.
+     */
+    public MoveResult tryMove(int from, int to) {
+        if (position.isGameOver()) {
+            return MoveResult.GAME_OVER;
+        }
+        int color = position.colorAt(from);
+        if (color == BitboardPosition.EMPTY) {
+            return MoveResult.NO_PIECE;
+        }
+        if (color != position.sideToMove()) {
+            return MoveResult.NOT_YOUR_TURN;
+        }
+        if (position.colorAt(to) == color) {
+            return MoveResult.OWN_PIECE;
+        }
+        if (!legalMoves.isLegal(from, to)) {
+            return MoveResult.ILLEGAL_MOVE;
+        }
+        // Setiap kali successfully gerak, dia akan tukar turn
+        makeMove(Move.encode(from, to));
+        // Hand this turn's events to the journal sinks
+        journal.flush();
+        return position.isGameOver() ? MoveResult.GAME_WON : MoveResult.MOVED;
     }
 
     /**
@@ -161,6 +375,8 @@ public class ChessModel {
      */
     public void resetGame() {
         isPinkTurn = true;        
+        flipped = false;
+        updateScreenRows();
         clearBoard();
         initializePieces();
         selectedPiece = null;
@@ -175,24 +391,66 @@ public class ChessModel {
                chessPiecesBoard[i][j] = null;
             }
         }
+        java.util.Arrays.fill(undoPieces, 0, 2 * undoSize, null);
+        undoSize = 0;
+        record = null;
+        java.util.Arrays.fill(twins, 0, twinCount, null);
+        twinCount = 0;
+        position.clear();
+        position.setPinkToMove(isPinkTurn);
+        fireSquaresChanged(BitboardPosition.ALL_SQUARES);
     }
 
     /**
      * Checks if the game is over by determining if a player's King (Sau) is still on the board.
+     * The bitboard keeps one set of squares per color and piece type, so this is a
+     * single lookup instead of a scan of the board.
      * 
      * @param color The color of the player being checked.
      * @return True if the King is no longer on the board, false otherwise.
      */
     public boolean isGameOver(ChessPieces.Color color) {
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 5; j++) {
-                ChessPieces piece = chessPiecesBoard[i][j];
-                if (piece != null && piece.getColor() == color && piece.getName().equalsIgnoreCase("Sau")) {
-                    return false; // The King is still alive
-                }
-            }
-        }
-        return true; // The King is dead
+        return position.pieces(BitboardPosition.colorOf(color), BitboardPosition.SAU) == 0;
+    }
+
+    /**
+     * Checks if either King (Sau) has been captured.
+     * 
+     * @return True if the game is over.
+     */
+    public boolean isGameOver() {
+        return position.isGameOver();
+    }
+
+    /**
+     * Returns where a player's King (Sau) stands.
+     * 
+     * @param color The color of the player.
+     * @return The square in Pink's board coordinates, or BitboardPosition.EMPTY if it was captured.
+     */
+    public int getSauSquare(ChessPieces.Color color) {
+        long sau = position.pieces(BitboardPosition.colorOf(color), BitboardPosition.SAU);
+        return sau == 0 ? BitboardPosition.EMPTY : Long.numberOfTrailingZeros(sau);
+    }
+
+    /**
+     * Returns the squares of one player's pieces of one type, kept up to date on every
+     * placement, capture and transformation. Flipping the board does not change them,
+     * since squares are always in Pink's board coordinates.
+     * 
+     * @param color The color of the player.
+     * @param type  One of the BitboardPosition type constants.
+     * @return A set of squares, bit n standing for square n.
+     */
+    public long getPieceSquares(ChessPieces.Color color, int type) {
+        return position.pieces(BitboardPosition.colorOf(color), type);
+    }
+
+    /**
+     * Returns the piece object on a square in Pink's board coordinates.
+     */
+    public ChessPieces getPieceAt(int sq) {
+        return pieceAt(sq);
     }
 
     /**
@@ -210,15 +468,306 @@ public class ChessModel {
      * @param newBoard The new chessboard state to set.
      */
     public void setChessBoard(ChessPieces[][] newBoard) {
-        this.chessPiecesBoard = newBoard;
+        clearBoard();
+        // A board handed in from outside always shows the side to move at the bottom
+        this.flipped = !isPinkTurn;
+        updateScreenRows();
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 5; j++) {
+                screenBoard[i][j] = newBoard[i][j];
+                if (newBoard[i][j] != null) {
+                    newBoard[i][j].setPosition(flipped ? 7 - i : i, j);
+                }
+            }
+        }
+        position.loadFrom(newBoard, flipped, isPinkTurn);
+        fireSquaresChanged(BitboardPosition.ALL_SQUARES);
+    }
+
+    /**
+     * Replaces the game with a bitboard position, e.g. one read from a GameArchive.
+     * Unlike setChessBoard() this keeps the Tor/Xor move counters and Ram directions.
+     *
+     * @param source The position to load; it is copied, not kept.
+     */
+    public void loadPosition(BitboardPosition source) {
+        selectedPiece = null;
+        selectedX = -1;
+        selectedY = -1;
+        isPinkTurn = source.isPinkToMove();
+        clearBoard();
+        position.copyFrom(source);
+        // The player to move sits at the bottom, as after every turn
+        flipped = !isPinkTurn;
+        updateScreenRows();
+        for (int sq = 0; sq < BitboardPosition.SQUARES; sq++) {
+            int type = position.typeAt(sq);
+            if (type != BitboardPosition.EMPTY) {
+                setPieceAt(sq, createPiece(type, BitboardPosition.toColor(position.colorAt(sq)), sq / 5, sq % 5));
+            }
+        }
+        fireSquaresChanged(BitboardPosition.ALL_SQUARES);
+    }
+
+    // Builds the piece object for a bitboard type
+    private static ChessPieces createPiece(int type, ChessPieces.Color color, int x, int y) {
+        switch (type) {
+            case BitboardPosition.RAM:
+                return new Ram(x, y, color);
+            case BitboardPosition.BIZ:
+                return new Biz(x, y, color);
+            case BitboardPosition.TOR:
+                return new Tor(x, y, color);
+            case BitboardPosition.XOR:
+                return new Xor(x, y, color);
+            default:
+                return new Sau(x, y, color);
+        }
+    }
+
+    /**
+     * Flips the board so that the player who moves next sits at the bottom.
+     * This is only a change of perspective: the screen rows are reordered and
+     * no piece is copied or moved.
+     */
+    public void flipBoard() {
+        flipped = !flipped;
+        updateScreenRows();
+        // Every tile now shows a different square
+        fireSquaresChanged(BitboardPosition.ALL_SQUARES);
+    }
+
+    /**
+     * Registers a listener that is told which squares change after every
+     * placement, move, capture, transformation, flip and load.
+     * 
+     * @param listener The listener to add.
+     */
+    public void addBoardListener(BoardListener listener) {
+        BoardListener[] grown = java.util.Arrays.copyOf(boardListeners, boardListeners.length + 1);
+        grown[boardListeners.length] = listener;
+        boardListeners = grown;
+    }
+
+    /**
+     * Holds back board notifications until the matching endUpdate(), so that several
+     * changes (e.g. a move and the flip after it) reach the listeners as one.
+     * Calls may be nested.
+     */
+    public void beginUpdate() {
+        updateDepth++;
+    }
+
+    /**
+     * Ends a beginUpdate() block and tells the listeners about every square changed in it.
+     */
+    public void endUpdate() {
+        if (updateDepth > 0 && --updateDepth == 0 && pendingSquares != 0) {
+            long squares = pendingSquares;
+            pendingSquares = 0;
+            fireSquaresChanged(squares);
+        }
+    }
+
+    private void fireSquaresChanged(long squares) {
+        // Every move, flip and load passes here
+        legalMoves.invalidate();
+        if (updateDepth > 0) {
+            pendingSquares |= squares;
+            return;
+        }
+        // The change is complete (a move is published together with its flip)
+        publishSnapshot();
+        for (BoardListener listener : boardListeners) {
+            listener.squaresChanged(squares);
+        }
+    }
+
+    // Replaces the published snapshot with a copy of the current position and tells
+    // the event subscribers about the change. This is the one allocation of a completed
+    // change (about 150 bytes); a change that leaves the position as it was keeps the
+    // old snapshot and sends no event.
+    private void publishSnapshot() {
+        int ply = record != null ? record.size() : 0;
+        PositionSnapshot current = snapshot.get();
+        if (current != null && current.matches(position, flipped, ply)) {
+            changeCount = 0;
+            return;
+        }
+        PositionSnapshot published = new PositionSnapshot(position, flipped, ply, ++snapshotSequence);
+        snapshot.set(published);
+        if (changeCount == 1) {
+            events.publish(changeKind, changeMove, changePiece, changeCaptured, changeResult, published);
+        } else {
+            events.publish(MoveEvent.Kind.POSITION, Move.NONE, BitboardPosition.EMPTY, BitboardPosition.EMPTY,
+                    BitboardPosition.EMPTY, published);
+        }
+        changeCount = 0;
+    }
+
+    // Remembers a move or undo for the event sent with the next snapshot
+    private void noteChange(MoveEvent.Kind kind, int move, int piece, int captured, int result) {
+        changeCount++;
+        changeKind = kind;
+        changeMove = move;
+        changePiece = piece;
+        changeCaptured = captured;
+        changeResult = result;
+    }
+
+    // Points every screen row at the stored row it shows
+    private void updateScreenRows() {
+        for (int i = 0; i < 8; i++) {
+            screenBoard[i] = chessPiecesBoard[flipped ? 7 - i : i];
+        }
+    }
+
+    // Returns the Tor or Xor object a piece turns into, creating it on the first transformation
+    private ChessPieces twinOf(ChessPieces piece, int newType) {
+        for (int i = 0; i < twinCount; i += 2) {
+            if (twins[i] == piece) {
+                return twins[i + 1];
+            }
+            if (twins[i + 1] == piece) {
+                return twins[i];
+            }
+        }
+        ChessPieces twin = newType == BitboardPosition.XOR
+                ? new Xor(piece.getX(), piece.getY(), piece.getColor())
+                : new Tor(piece.getX(), piece.getY(), piece.getColor());
+        if (twinCount == twins.length) {
+            twins = java.util.Arrays.copyOf(twins, twinCount * 2);
+        }
+        twins[twinCount++] = piece;
+        twins[twinCount++] = twin;
+        return twin;
+    }
+
+    private ChessPieces pieceAt(int sq) {
+        return chessPiecesBoard[sq / 5][sq % 5];
+    }
+
+    private void setPieceAt(int sq, ChessPieces piece) {
+        chessPiecesBoard[sq / 5][sq % 5] = piece;
+    }
+
+    /**
+     * Returns the piece type the rules see on a board square.
+     * 
+     * @param x The x-coordinate on the board.
+     * @param y The y-coordinate on the board.
+     * @return One of the BitboardPosition type constants, or BitboardPosition.EMPTY.
+     */
+    public int getPieceType(int x, int y) {
+        return position.typeAt(toSquare(x, y));
+    }
+
+    /**
+     * Converts screen coordinates into a bitboard square (always from Pink's side).
+     */
+    public int toSquare(int x, int y) {
+        int sq = BitboardPosition.square(x, y);
+        return flipped ? BitboardPosition.mirror(sq) : sq;
+    }
+
+    public boolean isFlipped() {
+        return flipped;
+    }
+
+    /**
+     * Replaces the event journal, e.g. to give every headless game its own.
+     * 
+     * @param journal The journal to record events in.
+     */
+    public void setJournal(GameJournal journal) {
+        this.journal = journal;
+    }
+
+    public GameJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the position as it was after the last completed move, flip, load or
+     * board edit. Safe to call from any thread; the snapshot never changes, so it can
+     * be read for as long as needed while the game goes on.
+     * A new snapshot is made for every completed change: one per move played outside
+     * beginUpdate()/endUpdate(), one per block otherwise (e.g. a replay seek).
+     *
+     * @return The latest snapshot; never null.
+     */
+    public PositionSnapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Returns the stream of move events. Subscribers are told about every completed
+     * move, undo and new position on their own threads, with backpressure; the thread
+     * playing the moves never waits for them.
+     */
+    public MoveEventStream getMoveEvents() {
+        return events;
+    }
+
+    // The live position; only for the thread that plays the moves (see getSnapshot())
+    public BitboardPosition getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns a 64-bit key identifying the current position. Two positions with the
+     * same pieces, Tor/Xor move counters, Ram directions and turn share the same key.
+     * The key is kept up to date by the bitboard on every placement, capture,
+     * transformation and turn change.
+     * 
+     * @return The Zobrist key of the position.
+     */
+    public long getPositionKey() {
+        return position.key();
+    }
+
+    /**
+     * Scores the position for the player to move, who is also the player shown at the
+     * bottom of the board. Positive values favour that player; 100 is about one Ram.
+     * 
+     * @return The evaluation in hundredths of a Ram.
+     */
+    public int getEvaluation() {
+        return Evaluation.evaluate(position);
     }
 
     public ChessPieces getSelectedPiece() {
         return selectedPiece;
     }
+
+    /**
+     * Returns the square of the selected piece.
+     *
+     * @return The square in Pink's board coordinates, or -1 if no piece is selected.
+     */
+    public int getSelectedSquare() {
+        return selectedPiece != null ? toSquare(selectedX, selectedY) : -1;
+    }
+
+    /**
+     * Returns the squares the piece on a square can legally move to in the current
+     * position. The masks are computed once per position, so this is a lookup.
+     *
+     * @param sq The square of the piece, in Pink's board coordinates.
+     * @return A mask of destination squares in Pink's board coordinates; 0 if the
+     *         square holds no piece of the player to move.
+     */
+    public long getLegalDestinations(int sq) {
+        return legalMoves.destinations(sq);
+    }
     
     //To use in load
     public void setTurn(boolean isPinkTurn) {
         this.isPinkTurn = isPinkTurn;
+        position.setPinkToMove(isPinkTurn);
+        legalMoves.invalidate();
+        if (updateDepth == 0) {
+            publishSnapshot();
+        }
     }
 }
\ No newline at end of file
@@ -58,14 +58,18 @@ public abstract class ChessPieces
 
     public boolean allowMovement(int newX, int newY, ChessPieces[][] board) {
         ChessPieces opponentPiece = board[newX][newY];
+        GameJournal journal = GameJournal.getDefault();
         if (opponentPiece == null || opponentPiece.getColor() != this.getColor()) {
-            if (opponentPiece != null) {
-                System.out.println(opponentPiece.getName() + " " + opponentPiece.getColor() +
-                    " was captured at (" + newX + ", " + newY + ").");
+            if (opponentPiece != null && journal.isEnabled(GameJournal.DEBUG)) {
+                journal.record(GameJournal.DEBUG, GameJournal.CAPTURE, GameJournal.pieceCode(this),
+                    x * 5 + y, newX * 5 + newY, GameJournal.pieceCode(opponentPiece));
             }
             return true; // Valid move
         } else {
-            System.out.println("Move invalid: Target square contains a piece of the same color.");
+            if (journal.isEnabled(GameJournal.DEBUG)) {
+                journal.record(GameJournal.DEBUG, GameJournal.REJECT, GameJournal.pieceCode(this),
+                    x * 5 + y, newX * 5 + newY, GameJournal.REASON_OWN_PIECE);
+            }
             return false;
         }
     }
@@ -5,6 +5,8 @@
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongBinaryOperator;
 
 public class ChessView {
     private final ChessModel model;  // The game model holding chess game logic
@@ -14,24 +16,25 @@ public class ChessView {
     private final MenuView menuView; // MenuView instance to show the main menu
     private SaveController saveController; // Controller for save button
     private JFrame gameFrame; // Game window frame
-    private JPanel boardPanel; // Panel to display the chessboard
+    private ChessBoardComponent chessBoard; // Draws the board and reports clicks on it
     private JPanel buttonsPanel; // Panel for the buttons (Save, Load, Restart, etc.)
 
-    private JButton[] chessTiles = new JButton[40]; // Array to represent the buttons on the chessboard
     private JButton musicButton; // Button to toggle music
     private JButton saveButton;  // Save button
     private JButton loadButton;  // Load button
     private JLabel turnDisplay; // Label to display the current turn
-    private JButton selectedTile = null; // Track the currently selected button
+    private ComputerPlayer computerPlayer; // Set when the computer ponders and can give hints
+    private JLabel analysisDisplay; // Depth of the computer's analysis during the human's turn
 
     private static final Color MAIN_COLOR = new Color(41, 128, 185); 
     private static final Color ACCENT_COLOR = new Color(39, 174, 96); 
     private static final Color WARNING_COLOR = new Color(231, 76, 60); 
     private static final Color TEXT_COLOR = Color.WHITE; 
     private static final Color PANEL_BACKGROUND = new Color(44, 62, 80); 
-    
-    private int selectedX = -1; // Track the x-coordinate of the selected piece
-    private int selectedY = -1;
+
+    // Squares (from Pink's side) waiting to be repainted; one repaint is queued while this is non-zero
+    private final AtomicLong pendingSquares = new AtomicLong();
+    private static final LongBinaryOperator UNION = (a, b) -> a | b;
 
     /**
      * Constructor: Initializes the ChessView object with a ChessModel and MenuView.
@@ -49,6 +52,9 @@ public class ChessView {
         if (gameFrame != null) {
             gameFrame.add(turnDisplay, BorderLayout.NORTH);
         }
+
+        // Only the tiles the model reports as changed are repainted
+        model.addBoardListener(this::repaintSquares);
     }
 
     public void setControllers(GameFlowController gameFlowController, MoveController moveController, SaveController saveController, ViewController viewController) {
@@ -59,6 +65,16 @@ public class ChessView {
         menuView.setControllers(gameFlowController);
     }
 
+    /**
+     * Adds a Hint button and a line showing the computer's analysis to the game window.
+     * Only useful when the computer ponders; the analysis arrives through showAnalysis().
+     *
+     * @param computerPlayer The computer opponent giving the hints.
+     */
+    public void setComputerPlayer(ComputerPlayer computerPlayer) {
+        this.computerPlayer = computerPlayer;
+    }
+
     // Displays the menu view
     public void showMenu() {
         menuView.showMenu(); 
@@ -112,10 +128,21 @@ public class ChessView {
         );
         buttonsPanel.add(saveButton);
 
+        if (computerPlayer != null) {
+            JButton hintButton = ButtonFactory.createButton(
+                "Hint", 
+                ACCENT_COLOR, 
+                e -> showHint()
+            );
+            buttonsPanel.add(hintButton);
+            analysisDisplay = new JLabel(" ", SwingConstants.CENTER);
+            analysisDisplay.setFont(new Font("Arial", Font.PLAIN, 14));
+            mainPanel.add(analysisDisplay, BorderLayout.SOUTH);
+        }
+
         mainPanel.add(buttonsPanel, BorderLayout.NORTH);
-        boardPanel = new JPanel(new GridLayout(8, 5));
-        mainPanel.add(boardPanel, BorderLayout.CENTER);
         createChessBoard();
+        mainPanel.add(chessBoard, BorderLayout.CENTER);
 
         gameFrame.add(turnDisplay, BorderLayout.NORTH);
         gameFrame.add(mainPanel);
@@ -125,101 +152,85 @@ public class ChessView {
     }
 
     public void createChessBoard(){
-        for (int i = 0; i < 40; i++) {
-            chessTiles[i] = new JButton();
-
-            if ((i / 5 + i % 5) % 2 == 0) {
-                chessTiles[i].setBackground(Color.WHITE);
-            } else {
-                chessTiles[i].setBackground(Color.BLACK);
-            }
-
-            chessTiles[i].setOpaque(true);
-            chessTiles[i].setBorderPainted(false);
-
-            final int tilesIndex = i;
-            final int x = i / 5;
-            final int y = i % 5;
-            chessTiles[i].addActionListener(e -> {
-                        selectChessBoard(x, y, chessTiles[tilesIndex]);
-                        moveController.executeMovement(x, y);
-                });
-
-            boardPanel.add(chessTiles[i]);
-        }
+        // One component paints all 40 tiles and maps clicks to tiles
+        chessBoard = new ChessBoardComponent(model);
+        chessBoard.setTileListener((x, y) -> {
+            moveController.executeMovement(x, y);
+            showSelection();
+        });
     }
 
-    private Color resetColor(JButton button) {
-        int index = java.util.Arrays.asList(chessTiles).indexOf(button);
-        if (index == -1) {
-            return Color.WHITE; // Default color if button is not in the array
-        }
-        return ((index / 5 + index % 5) % 2 == 0) ? Color.WHITE : Color.BLACK;
+    /**
+     * Highlights the selected piece and every square it can legally move to. The
+     * squares come from the model's legal-move masks, the same ones that decide
+     * whether the next click is a move, so a highlighted square is always playable.
+     */
+    private void showSelection() {
+        int sq = model.getSelectedSquare();
+        chessBoard.setSelection(sq, sq >= 0 ? model.getLegalDestinations(sq) : 0L);
     }
 
-    private void selectChessBoard(int x, int y, JButton button) {
-        ChessPieces selectedPiece = model.getChessBoard()[x][y];
-
-        if (selectedTile != null) {
-            selectedTile.setBackground(resetColor(selectedTile));
+    /**
+     * Highlights the move the computer's analysis found best for the player to move:
+     * the piece as selected and its destination.
+     */
+    private void showHint() {
+        int move = computerPlayer.getHint();
+        if (move == Move.NONE) {
+            analysisDisplay.setText("No hint yet, the computer is still thinking");
+            return;
         }
+        chessBoard.setSelection(Move.from(move), 1L << Move.to(move));
+    }
 
-        if (selectedPiece != null) {
-            selectedTile = button;
-            selectedTile.setBackground(new Color(255, 255, 102)); // Highlight selected tile
-        } else {
-            selectedTile = null;
+    /**
+     * Shows how far the computer's analysis of the human's turn has got. Called by
+     * PonderService on the event thread, at most once per event-thread cycle.
+     *
+     * @param progress The latest result of the analysis.
+     */
+    public void showAnalysis(PonderService.Progress progress) {
+        // Progress of a position that has already been left is dropped
+        if (analysisDisplay == null || progress.positionKey != model.getPositionKey()) {
+            return;
         }
+        analysisDisplay.setText("Computer analysis: depth " + progress.depth + ", "
+                + progress.repliesReady + " replies ready. Press Hint for the best move.");
     }
 
+    // Asks for the whole board to be repainted
     public void updateBoard() {
-        ChessPieces[][] board = model.getChessBoard();
-        boolean pinkTurn = model.isPinkTurn();
-
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 5; j++) {
-                int displayRow = i;
-                int displayCol = j;
-
-                ChessPieces piece = board[displayRow][displayCol];
-                int tilesIndex = i * 5 + j;
-
-                if (piece != null) {
-                    chessTiles[tilesIndex].setIcon(loadImage(piece));
-                } else {
-                    chessTiles[tilesIndex].setIcon(null);
-                }
-            }
+        repaintSquares(BitboardPosition.ALL_SQUARES);
+    }
+
+    /**
+     * Marks squares for repainting. Requests arriving before the event thread gets
+     * to them are merged, so any number of updates in one cycle cost one repaint.
+     * Safe to call from any thread.
+     *
+     * @param squares The squares to repaint, seen from Pink's side.
+     */
+    public void repaintSquares(long squares) {
+        if (pendingSquares.getAndAccumulate(squares, UNION) == 0) {
+            SwingUtilities.invokeLater(this::flushPendingSquares);
         }
     }
 
-    private ImageIcon loadImage(ChessPieces piece) {
-        String imagePath = "";
-        String name = piece.getName().toLowerCase();
-        ChessPieces.Color color = piece.getColor();
-
-        switch (name) {
-            case "ram":
-                imagePath = color == ChessPieces.Color.PINK ? "images/Ram.p.png" : "images/Ram.b.png";
-                break;
-            case "biz":
-                imagePath = color == ChessPieces.Color.PINK ? "images/Biz.p.png" : "images/Biz.b.png";
-                break;
-            case "tor":
-                imagePath = color == ChessPieces.Color.PINK ? "images/Tor.p.png" : "images/Tor.b.png";
-                break;
-            case "xor":
-                imagePath = color == ChessPieces.Color.PINK ? "images/Xor.p.png" : "images/Xor.b.png";
-                break;
-            case "sau":
-                imagePath = color == ChessPieces.Color.PINK ? "images/Sau.p.png" : "images/Sau.b.png";
-                break;
+    // Redraws all squares marked since the last flush
+    private void flushPendingSquares() {
+        long squares = pendingSquares.getAndSet(0);
+        if (chessBoard == null) {
+            return; // Board not created yet; startGame repaints everything
         }
+        chessBoard.repaintSquares(squares);
+    }
 
-        ImageIcon originalIcon = new ImageIcon(getClass().getResource(imagePath));
-        Image image = originalIcon.getImage();
-        Image resizedImage = image.getScaledInstance(100, 100, Image.SCALE_SMOOTH);
-        return new ImageIcon(resizedImage);
+    /**
+     * Tells the player why a click on the board was refused.
+     * @param message The reason to show.
+     */
+    public void showMoveRejected(String message) {
+        JOptionPane.showMessageDialog(null, message);
     }
 
     public void showGameOverMessage(String winner) {
@@ -254,6 +265,10 @@ public class ChessView {
 
     // Ni untuk switch turn kat dalam display atas
     public void switchTurn() {
+        if (analysisDisplay != null) {
+            // The analysis shown was for the previous turn
+            analysisDisplay.setText(" ");
+        }
         if (model.isPinkTurn()) {
             setTurnDisplay("Pink's Turn");
         } else {
@@ -0,0 +1,173 @@
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/**
+ * Purpose:
+ * Lets the SearchEngine play one or both colors in the Swing game. The search runs
+ * on a background thread and the chosen move is then played through
+ * MoveController.executeMovement, exactly like two clicks on the board.
+ */
+public class ComputerPlayer {
+    private final ChessModel model;
+    private final MoveController moveController;
+    private final SearchEngine engine = new SearchEngine();
+
+    // Colors played by the computer
+    private boolean playsPink;
+    private boolean playsBlue;
+
+    // True while the computer is clicking its move on the board
+    private boolean moving = false;
+    // True while a search is running in the background
+    private boolean thinking = false;
+
+    // Optional analysis during the human's turns
+    private PonderService ponderService;
+    // A pondered reply is played at once if it was searched at least this deep
+    private static final int MIN_PONDER_DEPTH = 6;
+
+    /**
+     * Creates a computer player.
+     * @param model The ChessModel holding the game.
+     * @param moveController The controller the computer plays its moves through.
+     * @param millisPerMove Time budget for each move.
+     */
+    public ComputerPlayer(ChessModel model, MoveController moveController, long millisPerMove) {
+        this.model = model;
+        this.moveController = moveController;
+        this.engine.setTimeLimit(millisPerMove);
+        // Endgame tables from -Dkwazam.tablebase=<directory>, if any
+        this.engine.setTablebase(Tablebase.getDefault());
+    }
+
+    /**
+     * Chooses the colors the computer plays.
+     * @param pink True if the computer plays Pink.
+     * @param blue True if the computer plays Blue.
+     */
+    public void setColors(boolean pink, boolean blue) {
+        this.playsPink = pink;
+        this.playsBlue = blue;
+    }
+
+    /**
+     * Lets the computer think during the human's turns, so it can answer at once
+     * and give hints.
+     * @param ponderService The service to use, or null to switch pondering off.
+     */
+    public void setPonderService(PonderService ponderService) {
+        this.ponderService = ponderService;
+    }
+
+    /**
+     * Returns the best move found so far for the human to move, for a hint.
+     * @return The move in Pink's board coordinates, or Move.NONE if none is known yet.
+     */
+    public int getHint() {
+        return ponderService != null ? ponderService.getHint(model.getPositionKey()) : Move.NONE;
+    }
+
+    /**
+     * Checks whether the player to move is controlled by the computer.
+     * @return True if it is the computer's turn.
+     */
+    public boolean playsCurrentTurn() {
+        return model.isPinkTurn() ? playsPink : playsBlue;
+    }
+
+    /**
+     * Checks whether the computer is the one clicking on the board right now.
+     */
+    public boolean isMoving() {
+        return moving;
+    }
+
+    /**
+     * Called on the event thread whenever a new turn begins. Starts a search
+     * if the computer plays the side to move.
+     */
+    public void turnStarted() {
+        if (model.getPosition().isGameOver()) {
+            if (ponderService != null) {
+                ponderService.stop();
+            }
+            return;
+        }
+        if (!playsCurrentTurn()) {
+            // The human is thinking: analyse their options in the background
+            if (ponderService != null) {
+                ponderService.turnStarted(model.getPosition());
+            }
+            return;
+        }
+        if (thinking) {
+            return;
+        }
+        final long positionKey = model.getPositionKey();
+        if (ponderService != null) {
+            ponderService.stop();
+            int reply = ponderService.getReply(positionKey, MIN_PONDER_DEPTH);
+            if (reply != Move.NONE) {
+                // Played after this event, so the human's move is finished first
+                SwingUtilities.invokeLater(() -> {
+                    if (model.getPositionKey() == positionKey) {
+                        playMove(reply);
+                    }
+                });
+                return;
+            }
+        }
+        thinking = true;
+        final BitboardPosition root = new BitboardPosition(model.getPosition());
+        final long rootKey = root.key();
+
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return engine.search(root);
+            }
+
+            @Override
+            protected void done() {
+                thinking = false;
+                int move;
+                try {
+                    move = get();
+                } catch (Exception e) {
+                    System.err.println("Computer player failed: " + e.getMessage());
+                    return;
+                }
+                if (model.getPositionKey() != rootKey) {
+                    // The game changed while we were thinking (new game or load). turnStarted()
+                    // skipped the new position because this search was running, so start it now.
+                    if (playsCurrentTurn()) {
+                        turnStarted();
+                    }
+                } else if (move != Move.NONE) {
+                    playMove(move);
+                }
+            }
+        }.execute();
+    }
+
+    // Plays the move as two clicks in screen coordinates
+    private void playMove(int move) {
+        int from = toScreen(Move.from(move));
+        int to = toScreen(Move.to(move));
+        moving = true;
+        try {
+            moveController.executeMovement(from / BitboardPosition.COLS, from % BitboardPosition.COLS);
+            moveController.executeMovement(to / BitboardPosition.COLS, to % BitboardPosition.COLS);
+        } finally {
+            moving = false;
+        }
+    }
+
+    private int toScreen(int sq) {
+        return model.isFlipped() ? BitboardPosition.mirror(sq) : sq;
+    }
+
+    public SearchEngine getEngine() {
+        return engine;
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Journal sink that prints every event on standard output, one line per event.
+ * Lines are written in one batch per flush, so the console is locked once per
+ * batch instead of once per event.
+ */
+public class ConsoleJournalSink implements JournalSink {
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Override
+    public void publish(long timestamp, long record) {
+        buffer.append(GameJournal.format(record)).append(System.lineSeparator());
+        if (buffer.length() > 8192) {
+            flush();
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (buffer.length() > 0) {
+            System.out.print(buffer);
+            buffer.setLength(0);
+        }
+    }
+}
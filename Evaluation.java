@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Purpose:
+ * Scores a position for the search engine. The score is in hundredths of a Ram
+ * and is given from the point of view of the side to move.
+ *
+ * Design:
+ * - Material and piece-square tables are summed by BitboardPosition itself: every
+ *   put() and remove() adds or takes away the piece's entry of squareScores(), so a
+ *   move, capture or Tor/Xor transformation costs two or three additions and
+ *   evaluate() only reads the running total.
+ * - The Sau-safety terms depend on the pieces around the Sau and are computed from
+ *   the bitboards at evaluation time: own pieces next to the Sau, enemy pieces next
+ *   to it, and enemy pieces that could capture it right now.
+ * - Tables are written from Pink's side (row 0 is Blue's back row); Blue uses the
+ *   mirrored square. Since the score is for the side to move, it follows the board
+ *   flip after every turn.
+ * - Weights can be read from a properties file (see loadWeights), which replaces the
+ *   whole set at once. The file named by the system property "kwazam.weights" is
+ *   loaded when the class is first used.
+ *
+ * Losing the Sau ends the game, so the Sau has no material value here; the search
+ * scores a captured Sau as a win instead.
+ */
+public final class Evaluation {
+
+    // Default material values indexed by BitboardPosition piece type
+    private static final int[] PIECE_VALUES = {100, 300, 450, 450, 0};
+
+    // Default piece-square tables indexed by piece type, 8 rows of 5 squares from Pink's side
+    private static final int[][] PIECE_SQUARE = {
+        {   // Ram: worth more the further it has advanced
+            30, 30, 30, 30, 30,
+            25, 25, 25, 25, 25,
+            20, 20, 22, 20, 20,
+            12, 14, 16, 14, 12,
+             6,  8, 10,  8,  6,
+             2,  4,  6,  4,  2,
+             0,  0,  0,  0,  0,
+             0,  0,  0,  0,  0,
+        },
+        {   // Biz: jumps are best from the middle of the board
+           -20,-10, -5,-10,-20,
+           -10,  0,  5,  0,-10,
+            -5,  5, 15,  5, -5,
+            -5, 10, 20, 10, -5,
+            -5, 10, 20, 10, -5,
+            -5,  5, 15,  5, -5,
+           -10,  0,  5,  0,-10,
+           -20,-10, -5,-10,-20,
+        },
+        {   // Tor
+             0,  5,  5,  5,  0,
+             5, 10, 10, 10,  5,
+             0,  5,  5,  5,  0,
+             0,  5,  5,  5,  0,
+             0,  5,  5,  5,  0,
+             0,  5,  5,  5,  0,
+             0,  0,  0,  0,  0,
+             0,  0,  5,  0,  0,
+        },
+        {   // Xor: diagonals are longest through the middle
+           -10, -5,  0, -5,-10,
+            -5,  0,  5,  0, -5,
+             0,  5, 10,  5,  0,
+             0, 10, 15, 10,  0,
+             0, 10, 15, 10,  0,
+             0,  5, 10,  5,  0,
+            -5,  0,  5,  0, -5,
+           -10, -5,  0, -5,-10,
+        },
+        {   // Sau: safest at home
+           -40,-40,-40,-40,-40,
+           -30,-30,-30,-30,-30,
+           -25,-25,-25,-25,-25,
+           -20,-20,-20,-20,-20,
+           -15,-15,-15,-15,-15,
+           -10,-10,-10,-10,-10,
+             0,  0,  0,  0,  0,
+             5, 10, 10, 10,  5,
+        },
+    };
+
+    /**
+     * One complete set of weights. Never changed once built: loadWeights() builds a new
+     * set and publishes it with a single write, so a search never sees half of a change.
+     */
+    private static final class Weights {
+        final int[] pieceValues;
+        final int[][] pieceSquare;
+        // Sau safety, per piece
+        final int sauShield;      // Own piece next to the Sau
+        final int sauNearEnemy;   // Enemy piece next to the Sau
+        final int sauAttacked;    // Enemy Biz, Tor, Xor or Sau able to capture the Sau
+        // Material plus piece-square value of every piece on every square, indexed by
+        // color * TYPES + type; negative for Blue, so sums are Pink minus Blue
+        final int[][] squareScores = new int[2 * BitboardPosition.TYPES][BitboardPosition.SQUARES];
+
+        Weights(int[] pieceValues, int[][] pieceSquare, int sauShield, int sauNearEnemy, int sauAttacked) {
+            this.pieceValues = pieceValues;
+            this.pieceSquare = pieceSquare;
+            this.sauShield = sauShield;
+            this.sauNearEnemy = sauNearEnemy;
+            this.sauAttacked = sauAttacked;
+            for (int type = 0; type < BitboardPosition.TYPES; type++) {
+                for (int sq = 0; sq < BitboardPosition.SQUARES; sq++) {
+                    int value = pieceValues[type] + pieceSquare[type][sq];
+                    squareScores[BitboardPosition.PINK * BitboardPosition.TYPES + type][sq] = value;
+                    squareScores[BitboardPosition.BLUE * BitboardPosition.TYPES + type][BitboardPosition.mirror(sq)] = -value;
+                }
+            }
+        }
+    }
+
+    private static volatile Weights weights = new Weights(PIECE_VALUES, PIECE_SQUARE, 8, -12, -60);
+
+    // Squares in line with a square, so rays are only walked when a Tor or Xor could reach the Sau
+    private static final long[] ORTHOGONAL_LINES = new long[BitboardPosition.SQUARES];
+    private static final long[] DIAGONAL_LINES = new long[BitboardPosition.SQUARES];
+
+    static {
+        for (int a = 0; a < BitboardPosition.SQUARES; a++) {
+            for (int b = 0; b < BitboardPosition.SQUARES; b++) {
+                int rows = Math.abs(a / BitboardPosition.COLS - b / BitboardPosition.COLS);
+                int cols = Math.abs(a % BitboardPosition.COLS - b % BitboardPosition.COLS);
+                if (a != b && (rows == 0 || cols == 0)) {
+                    ORTHOGONAL_LINES[a] |= 1L << b;
+                }
+                if (a != b && rows == cols) {
+                    DIAGONAL_LINES[a] |= 1L << b;
+                }
+            }
+        }
+        String file = System.getProperty("kwazam.weights");
+        if (file != null) {
+            try {
+                loadWeights(Path.of(file));
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Could not load evaluation weights: " + e.getMessage());
+            }
+        }
+    }
+
+    private Evaluation() {
+    }
+
+    /**
+     * Evaluates a position.
+     *
+     * @param position The position to score.
+     * @return The score for the side to move.
+     */
+    public static int evaluate(BitboardPosition position) {
+        Weights current = weights;
+        int score = position.squareScore()
+                + sauSafety(position, BitboardPosition.PINK, current) - sauSafety(position, BitboardPosition.BLUE, current);
+        return position.isPinkToMove() ? score : -score;
+    }
+
+    // Safety of one color's Sau
+    private static int sauSafety(BitboardPosition position, int color, Weights current) {
+        long sau = position.pieces(color, BitboardPosition.SAU);
+        if (sau == 0) {
+            return 0;
+        }
+        int sq = Long.numberOfTrailingZeros(sau);
+        int enemy = 1 - color;
+        // Each call leaves out the squares of one color, together they give every neighbour
+        long ring = position.attacks(sq, color, BitboardPosition.SAU) | position.attacks(sq, enemy, BitboardPosition.SAU);
+        // Squares reached from the Sau with an enemy move pattern hold the pieces attacking it
+        long attackers = (position.attacks(sq, color, BitboardPosition.BIZ) & position.pieces(enemy, BitboardPosition.BIZ))
+                | (ring & position.pieces(enemy, BitboardPosition.SAU));
+        long tors = position.pieces(enemy, BitboardPosition.TOR);
+        if ((tors & ORTHOGONAL_LINES[sq]) != 0) {
+            attackers |= position.attacks(sq, color, BitboardPosition.TOR) & tors;
+        }
+        long xors = position.pieces(enemy, BitboardPosition.XOR);
+        if ((xors & DIAGONAL_LINES[sq]) != 0) {
+            attackers |= position.attacks(sq, color, BitboardPosition.XOR) & xors;
+        }
+        return current.sauShield * Long.bitCount(ring & position.occupancy(color))
+                + current.sauNearEnemy * Long.bitCount(ring & position.occupancy(enemy))
+                + current.sauAttacked * Long.bitCount(attackers);
+    }
+
+    /**
+     * Returns the material value of a piece type.
+     */
+    public static int pieceValue(int type) {
+        return weights.pieceValues[type];
+    }
+
+    // The piece-square sums of the current weights, for BitboardPosition
+    static int[][] squareScores() {
+        return weights.squareScores;
+    }
+
+    /**
+     * Loads weights from a properties file. Keys that are missing keep their value:
+     *   value.Ram = 100                 (material, likewise value.Biz, value.Tor, ...)
+     *   pst.Ram = 40 comma-separated numbers, row 0 (Blue's back row) first, from Pink's side
+     *   sau.shield, sau.nearEnemy, sau.attacked
+     * The new weights are built aside and replace the old ones in one step; if the file
+     * has an error nothing changes. A position keeps summing with the weights it was set
+     * up with, so its score never mixes old and new values; it changes over at its next
+     * clear(), copyFrom() (as at the start of every search) or rescore().
+     *
+     * @param file The properties file.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If a value is not a number or a table has the wrong size.
+     */
+    public static synchronized void loadWeights(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        Weights old = weights;
+        int[] pieceValues = old.pieceValues.clone();
+        int[][] pieceSquare = new int[BitboardPosition.TYPES][];
+        for (int type = 0; type < BitboardPosition.TYPES; type++) {
+            pieceSquare[type] = old.pieceSquare[type].clone();
+            String name = BitboardPosition.nameOf(type);
+            String value = properties.getProperty("value." + name);
+            if (value != null) {
+                pieceValues[type] = Integer.parseInt(value.trim());
+            }
+            String table = properties.getProperty("pst." + name);
+            if (table != null) {
+                String[] entries = table.split(",");
+                if (entries.length != BitboardPosition.SQUARES) {
+                    throw new IllegalArgumentException("pst." + name + " needs " + BitboardPosition.SQUARES + " numbers");
+                }
+                for (int sq = 0; sq < BitboardPosition.SQUARES; sq++) {
+                    pieceSquare[type][sq] = Integer.parseInt(entries[sq].trim());
+                }
+            }
+        }
+        int sauShield = Integer.parseInt(properties.getProperty("sau.shield", String.valueOf(old.sauShield)).trim());
+        int sauNearEnemy = Integer.parseInt(properties.getProperty("sau.nearEnemy", String.valueOf(old.sauNearEnemy)).trim());
+        int sauAttacked = Integer.parseInt(properties.getProperty("sau.attacked", String.valueOf(old.sauAttacked)).trim());
+        weights = new Weights(pieceValues, pieceSquare, sauShield, sauNearEnemy, sauAttacked);
+    }
+
+    /**
+     * Writes the current weights in the format read by loadWeights, e.g. as a starting
+     * point for tuning.
+     */
+    public static synchronized void saveWeights(Path file) throws IOException {
+        Weights current = weights;
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            writer.write("# Kwazam evaluation weights, in hundredths of a Ram\n");
+            for (int type = 0; type < BitboardPosition.TYPES; type++) {
+                String name = BitboardPosition.nameOf(type);
+                writer.write("value." + name + " = " + current.pieceValues[type] + "\n");
+                writer.write("pst." + name + " = ");
+                for (int sq = 0; sq < BitboardPosition.SQUARES; sq++) {
+                    if (sq > 0) {
+                        writer.write(sq % BitboardPosition.COLS == 0 ? ", \\\n    " : ", ");
+                    }
+                    writer.write(String.valueOf(current.pieceSquare[type][sq]));
+                }
+                writer.write("\n");
+            }
+            writer.write("sau.shield = " + current.sauShield + "\n");
+            writer.write("sau.nearEnemy = " + current.sauNearEnemy + "\n");
+            writer.write("sau.attacked = " + current.sauAttacked + "\n");
+        }
+    }
+}
@@ -1,49 +1,27 @@
-import javax.swing.JFrame;
-
 /**
  * The FlipScreenController class is responsible for flipping the chessboard view
- * in a chess application. It interacts with the ChessModel (data) and ChessView (UI)
+ * in a chess application, so the player to move sits at the bottom of the screen.
+ * It only talks to the ChessModel; the view repaints when the model reports the change.
  */
 public class FlipScreenController {
 
-    private ChessView view;
     private ChessModel model;
 
     /**
-     * Constructor to initialize the FlipScreenController with view and model.
+     * Constructor to initialize the FlipScreenController with the model.
      */
-    public FlipScreenController(ChessView view, ChessModel model) {
-        this.view = view;
+    public FlipScreenController(ChessModel model) {
         this.model = model;
     }
 
     /**
-     * The chessboard will be flipped by reversing the x-coordinates on the board.
+     * Turns the board around by switching the model's perspective. No piece moves:
+     * the model keeps the board from Pink's side and only changes which side the
+     * screen shows at the bottom.
      */
     public void flipScreen() {
-        // Retrieve the current chessboard from the model
-        ChessPieces[][] board = model.getChessBoard();
-
-        // Create a new board to store the flipped setup.
-        ChessPieces[][] flippedBoard = new ChessPieces[8][5];
-
-        // Go through the original board to reverse the rows.
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 5; j++) {
-                // Flip the row and assign the piece to the new board
-                flippedBoard[7 - i][j] = board[i][j];
-
-                // Update the piece's position
-                if (board[i][j] != null) {
-                    board[i][j].setPosition(7 - i, j);
-                }
-            }
-        }
-
-        // Update the model with the flipped board
-        model.setChessBoard(flippedBoard);
-
-        // Update the board
-        view.updateBoard();
+        // The rule checks follow the new perspective, and the model tells the view
+        // to repaint every tile.
+        model.flipBoard();
     }
 }
@@ -0,0 +1,207 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Purpose:
+ * Stores many games in one file and opens any of them in constant time. The file
+ * is memory-mapped, so reading a game is a lookup in the index followed by a view
+ * on the mapped bytes; nothing is parsed or copied until the game is decoded.
+ *
+ * File layout (version 1, little endian):
+ * - header, 24 bytes: magic "KWZA", version, game count, reserved, index offset (long)
+ * - entries: an int length followed by that many bytes, a PositionCodec position or a GameRecord
+ * - index: one long file offset per entry
+ *
+ * Archives are written once with a Writer and then opened read-only. A single
+ * archive file is limited to 2 GB because it is mapped in one piece; the Writer
+ * refuses a game that would take the file past that.
+ */
+public class GameArchive {
+
+    public static final int MAGIC = 0x415A574B; // "KWZA" read as little-endian int
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    // Largest file that can be mapped in one piece and addressed with int offsets
+    private static final long MAX_FILE_BYTES = Integer.MAX_VALUE;
+
+    private final MappedByteBuffer data;
+    private final int count;
+    private final int indexOffset;
+
+    private GameArchive(MappedByteBuffer data) throws IOException {
+        this.data = data;
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.getInt(0) != MAGIC) {
+            throw new IOException("Not a game archive");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Unsupported archive version: " + data.getInt(4));
+        }
+        this.count = data.getInt(8);
+        this.indexOffset = (int) data.getLong(16);
+    }
+
+    /**
+     * Opens an archive for reading.
+     *
+     * @param file The archive file.
+     * @return The opened archive.
+     * @throws IOException If the file cannot be mapped or is not an archive.
+     */
+    public static GameArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new GameArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Returns the number of games in the archive.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns a read-only view on the bytes of one game. Nothing is copied.
+     *
+     * @param index The game number, from 0 to size() - 1.
+     * @return A buffer positioned at the start of the game.
+     */
+    public ByteBuffer entry(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("No game " + index + " in archive of " + count);
+        }
+        int offset = (int) data.getLong(indexOffset + index * 8);
+        int length = data.getInt(offset);
+        return data.slice(offset + 4, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodes a game stored as a PositionCodec position.
+     *
+     * @param index    The game number.
+     * @param position The position to overwrite.
+     */
+    public void readPosition(int index, BitboardPosition position) {
+        PositionCodec.decode(entry(index), position);
+    }
+
+    /**
+     * Decodes a game stored as a GameRecord.
+     *
+     * @param index The game number.
+     * @return The decoded record.
+     */
+    public GameRecord readRecord(int index) {
+        return GameRecord.decode(entry(index));
+    }
+
+    /**
+     * Checks whether a game is stored as a GameRecord rather than a single position.
+     */
+    public boolean isRecord(int index) {
+        return GameRecord.isRecord(entry(index));
+    }
+
+    /**
+     * Writes a new archive. Entries are streamed to disk as they are added;
+     * the index and header are written by close().
+     */
+    public static class Writer implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private long[] offsets = new long[1024];
+        private int count = 0;
+        private long filePosition = HEADER_BYTES;
+
+        public Writer(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+        }
+
+        /**
+         * Appends one game.
+         *
+         * @param bytes The encoded game.
+         * @return The index of the new game.
+         * @throws IOException If the game cannot be written, or if with it (and its index
+         *                     entry) the file would be larger than 2 GB. The archive
+         *                     stays usable without the refused game.
+         */
+        public int add(byte[] bytes) throws IOException {
+            if (filePosition + 4 + bytes.length + 8L * (count + 1) > MAX_FILE_BYTES) {
+                throw new IOException("Archive full: game " + count + " would take the file past 2 GB");
+            }
+            if (count == offsets.length) {
+                offsets = java.util.Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count] = filePosition;
+            writeInt(bytes.length);
+            for (int i = 0; i < bytes.length; ) {
+                if (!buffer.hasRemaining()) {
+                    drain();
+                }
+                int chunk = Math.min(buffer.remaining(), bytes.length - i);
+                buffer.put(bytes, i, chunk);
+                i += chunk;
+            }
+            filePosition += 4 + bytes.length;
+            return count++;
+        }
+
+        /**
+         * Appends a position in the PositionCodec format.
+         */
+        public int addPosition(BitboardPosition position) throws IOException {
+            return add(PositionCodec.encode(position));
+        }
+
+        /**
+         * Appends a whole game in the GameRecord format.
+         */
+        public int addRecord(GameRecord record) throws IOException {
+            return add(record.encode());
+        }
+
+        @Override
+        public void close() throws IOException {
+            long indexOffset = filePosition;
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < 8) {
+                    drain();
+                }
+                buffer.putLong(offsets[i]);
+            }
+            drain();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(0).putLong(indexOffset);
+            header.flip();
+            channel.write(header, 0);
+            channel.close();
+        }
+
+        private void writeInt(int value) throws IOException {
+            if (buffer.remaining() < 4) {
+                drain();
+            }
+            buffer.putInt(value);
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -11,6 +11,9 @@ public class GameFlowController {
     // Reference to the ChessView (user interface)
     private ChessView view;
 
+    // Optional computer opponent
+    private ComputerPlayer computerPlayer;
+
     /**
      * Constructor to initialize the GameFlowController with the necessary components.
      *
@@ -22,6 +25,15 @@ public class GameFlowController {
         this.view = view;
     }
 
+    /**
+     * Sets the computer player that should be told when a new game starts.
+     *
+     * @param computerPlayer The computer player, or null for two human players.
+     */
+    public void setComputerPlayer(ComputerPlayer computerPlayer) {
+        this.computerPlayer = computerPlayer;
+    }
+
     /**
      * Starts a new game by resetting the model and initializing the view.
      */
@@ -30,6 +42,10 @@ public class GameFlowController {
         model.startNewGame();
         // Update the view to start a new game
         view.startGame();
+        // Let the computer open the game if it plays Pink
+        if (computerPlayer != null) {
+            computerPlayer.turnStarted();
+        }
     }
 
     /**
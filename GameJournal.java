@@ -0,0 +1,220 @@
+import java.util.Arrays;
+
+/**
+ * Purpose:
+ * Records game events (select, move, capture, transform, turn and rule checks)
+ * instead of printing them. Events go into a preallocated ring buffer of longs and
+ * are handed to the registered sinks in batches by flush().
+ *
+ * Design:
+ * - Every event is two longs: a System.nanoTime() timestamp and a packed record,
+ *   so recording never builds a string and never allocates.
+ * - A level switch decides what is recorded. Every record call starts with a
+ *   single field check, so a disabled journal costs almost nothing.
+ * - When the ring is full the oldest events are overwritten; flush() happens
+ *   automatically once half of the ring is waiting.
+ * - A journal is written by one thread at a time. Each game (model) can have its own
+ *   journal; the default one is used by the Swing game and the piece classes.
+ *
+ * The default level is read from the system property "kwazam.journal"
+ * (OFF, MOVES or DEBUG). When it is set, a ConsoleJournalSink is attached.
+ */
+public class GameJournal {
+
+    // Levels
+    public static final int OFF = 0;
+    public static final int MOVES = 1;   // select, move, capture, transform, turn
+    public static final int DEBUG = 2;   // rule checks and rejected moves as well
+
+    // Event types
+    public static final int SELECT = 1;
+    public static final int MOVE = 2;
+    public static final int CAPTURE = 3;
+    public static final int TRANSFORM = 4;
+    public static final int TURN = 5;
+    public static final int RULE_CHECK = 6;
+    public static final int REJECT = 7;
+
+    private static final String[] EVENT_NAMES = {"", "SELECT", "MOVE", "CAPTURE", "TRANSFORM", "TURN", "RULE_CHECK", "REJECT"};
+    private static final String[] REASONS = {"", "not an L-shaped move", "own piece on target square"};
+
+    // Reasons stored in the detail field of REJECT events
+    public static final int REASON_NOT_L_SHAPE = 1;
+    public static final int REASON_OWN_PIECE = 2;
+
+    private static final GameJournal DEFAULT = createDefault();
+
+    private final long[] ring;
+    private final int mask;
+    private long written = 0;   // Events recorded so far
+    private long drained = 0;   // Events handed to the sinks so far
+    private int level;
+    private JournalSink[] sinks = new JournalSink[0];
+
+    /**
+     * Creates a journal.
+     *
+     * @param capacity Number of events kept; rounded up to a power of two.
+     * @param level    OFF, MOVES or DEBUG.
+     */
+    public GameJournal(int capacity, int level) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.ring = new long[size * 2];
+        this.mask = size - 1;
+        this.level = level;
+    }
+
+    public static GameJournal getDefault() {
+        return DEFAULT;
+    }
+
+    private static GameJournal createDefault() {
+        String setting = System.getProperty("kwazam.journal", "OFF").toUpperCase();
+        int level = setting.equals("DEBUG") ? DEBUG : setting.equals("MOVES") ? MOVES : OFF;
+        GameJournal journal = new GameJournal(4096, level);
+        if (level != OFF) {
+            journal.addSink(new ConsoleJournalSink());
+        }
+        return journal;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Checks whether events of a level are recorded. Use this to skip work that is
+     * only needed to build a record.
+     */
+    public boolean isEnabled(int eventLevel) {
+        return level >= eventLevel;
+    }
+
+    public void addSink(JournalSink sink) {
+        JournalSink[] grown = Arrays.copyOf(sinks, sinks.length + 1);
+        grown[sinks.length] = sink;
+        sinks = grown;
+    }
+
+    /**
+     * Records an event if the journal level allows it.
+     *
+     * @param eventLevel MOVES or DEBUG.
+     * @param event      The event type.
+     * @param piece      Piece code (color * BitboardPosition.TYPES + type), or -1.
+     * @param from       Source square index, or -1.
+     * @param to         Target square index, or -1.
+     * @param detail     Event specific value (captured piece code, new type, reason...).
+     */
+    public void record(int eventLevel, int event, int piece, int from, int to, int detail) {
+        if (level < eventLevel) {
+            return;
+        }
+        int index = ((int) written & mask) << 1;
+        ring[index] = System.nanoTime();
+        ring[index + 1] = pack(event, piece, from, to, detail);
+        written++;
+        if (written - drained >= (mask + 1) / 2) {
+            flush();
+        }
+    }
+
+    /**
+     * Hands every waiting event to the sinks. Events already overwritten in the ring
+     * are skipped.
+     */
+    public void flush() {
+        long start = Math.max(drained, written - (mask + 1));
+        if (sinks.length > 0) {
+            for (long i = start; i < written; i++) {
+                int index = ((int) i & mask) << 1;
+                for (JournalSink sink : sinks) {
+                    sink.publish(ring[index], ring[index + 1]);
+                }
+            }
+            for (JournalSink sink : sinks) {
+                sink.flush();
+            }
+        }
+        drained = written;
+    }
+
+    /**
+     * Returns the number of events recorded since the journal was created.
+     */
+    public long getEventCount() {
+        return written;
+    }
+
+    // Record layout: bits 0-3 event, 4-7 piece + 1, 8-14 from + 1, 15-21 to + 1, 22-29 detail + 1
+    private static long pack(int event, int piece, int from, int to, int detail) {
+        return event | ((long) (piece + 1) << 4) | ((long) (from + 1) << 8)
+                | ((long) (to + 1) << 15) | ((long) (detail + 1) << 22);
+    }
+
+    public static int event(long record) {
+        return (int) record & 0xF;
+    }
+
+    public static int piece(long record) {
+        return ((int) (record >>> 4) & 0xF) - 1;
+    }
+
+    public static int from(long record) {
+        return ((int) (record >>> 8) & 0x7F) - 1;
+    }
+
+    public static int to(long record) {
+        return ((int) (record >>> 15) & 0x7F) - 1;
+    }
+
+    public static int detail(long record) {
+        return ((int) (record >>> 22) & 0xFF) - 1;
+    }
+
+    /**
+     * Returns the piece code used in records for a piece object.
+     */
+    public static int pieceCode(ChessPieces piece) {
+        return BitboardPosition.colorOf(piece.getColor()) * BitboardPosition.TYPES
+                + BitboardPosition.typeOf(piece.getName());
+    }
+
+    /**
+     * Formats a record as a readable line, e.g. "MOVE Pink Biz (7, 1) -> (5, 2)".
+     */
+    public static String format(long record) {
+        int event = event(record);
+        StringBuilder line = new StringBuilder(EVENT_NAMES[event]);
+        int piece = piece(record);
+        if (piece >= 0) {
+            line.append(piece < BitboardPosition.TYPES ? " Pink " : " Blue ")
+                .append(BitboardPosition.nameOf(piece % BitboardPosition.TYPES));
+        }
+        appendSquare(line, " ", from(record));
+        appendSquare(line, " -> ", to(record));
+        int detail = detail(record);
+        if (event == TURN) {
+            line.append(detail == BitboardPosition.PINK ? " Pink" : " Blue");
+        } else if (event == CAPTURE && detail >= 0) {
+            line.append(" took ").append(detail < BitboardPosition.TYPES ? "Pink " : "Blue ")
+                .append(BitboardPosition.nameOf(detail % BitboardPosition.TYPES));
+        } else if (event == TRANSFORM && detail >= 0) {
+            line.append(" into ").append(BitboardPosition.nameOf(detail));
+        } else if (event == REJECT && detail > 0 && detail < REASONS.length) {
+            line.append(": ").append(REASONS[detail]);
+        }
+        return line.toString();
+    }
+
+    private static void appendSquare(StringBuilder line, String prefix, int sq) {
+        if (sq >= 0) {
+            line.append(prefix).append('(').append(sq / BitboardPosition.COLS)
+                .append(", ").append(sq % BitboardPosition.COLS).append(')');
+        }
+    }
+}
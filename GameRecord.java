@@ -0,0 +1,175 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Purpose:
+ * A whole game stored as its starting position and the moves played from it.
+ * Any position of the game can be rebuilt by replaying the moves (see ReplayEngine),
+ * so one record replaces a snapshot per ply.
+ *
+ * Layout (little endian):
+ * - byte 0: FORMAT, which tells a record apart from a bare PositionCodec position
+ * - the starting position in the PositionCodec format
+ * - an unsigned short move count
+ * - one short per move: the from square in bits 0-5, the to square in bits 6-11
+ */
+public final class GameRecord {
+
+    public static final int FORMAT = 0x81;
+    public static final int MAX_MOVES = 0xFFFF;
+
+    private final BitboardPosition start = new BitboardPosition();
+    private short[] moves;
+    private int size;
+
+    /**
+     * Creates an empty record starting from the given position.
+     *
+     * @param start The starting position; it is copied.
+     */
+    public GameRecord(BitboardPosition start) {
+        this.start.copyFrom(start);
+        this.moves = new short[64];
+    }
+
+    /**
+     * Creates a copy of another record.
+     */
+    public GameRecord(GameRecord other) {
+        this.start.copyFrom(other.start);
+        this.moves = java.util.Arrays.copyOf(other.moves, Math.max(other.size, 16));
+        this.size = other.size;
+    }
+
+    /**
+     * Appends a move.
+     *
+     * @param move The move, encoded with Move.encode().
+     */
+    public void add(int move) {
+        if (size == MAX_MOVES) {
+            throw new IllegalStateException("Game record is full");
+        }
+        if (size == moves.length) {
+            moves = java.util.Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = (short) move;
+    }
+
+    /**
+     * Drops every move after the first count moves.
+     */
+    public void truncate(int count) {
+        size = Math.max(0, Math.min(size, count));
+    }
+
+    /**
+     * Returns the number of moves (plies) in the record.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the move played at a ply, encoded with Move.encode().
+     */
+    public int move(int ply) {
+        if (ply < 0 || ply >= size) {
+            throw new IndexOutOfBoundsException("No move " + ply + " in record of " + size);
+        }
+        return moves[ply];
+    }
+
+    /**
+     * Copies the starting position into the given position.
+     */
+    public void getStart(BitboardPosition out) {
+        out.copyFrom(start);
+    }
+
+    /**
+     * Rebuilds the position after a number of moves.
+     *
+     * @param ply The number of moves to play, from 0 to size().
+     * @param out The position to overwrite.
+     */
+    public void positionAt(int ply, BitboardPosition out) {
+        out.copyFrom(start);
+        for (int i = 0; i < ply; i++) {
+            out.move(Move.from(moves[i]), Move.to(moves[i]));
+        }
+    }
+
+    /**
+     * Returns the size of the encoded record in bytes.
+     */
+    public int encodedSize() {
+        return 1 + PositionCodec.MAX_BYTES + 2 + 2 * size;
+    }
+
+    /**
+     * Writes the record at the buffer's current position.
+     *
+     * @param out The buffer; needs at least encodedSize() bytes left.
+     * @return The number of bytes written.
+     */
+    public int encode(ByteBuffer out) {
+        int begin = out.position();
+        ByteOrder order = out.order();
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        out.put((byte) FORMAT);
+        PositionCodec.encode(start, out);
+        out.putShort((short) size);
+        for (int i = 0; i < size; i++) {
+            out.putShort(moves[i]);
+        }
+        out.order(order);
+        return out.position() - begin;
+    }
+
+    /**
+     * Encodes the record into a new byte array.
+     */
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize());
+        encode(buffer);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a record from the buffer's current position.
+     *
+     * @param in The buffer to read from.
+     * @return The decoded record.
+     * @throws IllegalArgumentException If the data is not a game record.
+     */
+    public static GameRecord decode(ByteBuffer in) {
+        int format = in.get() & 0xFF;
+        if (format != FORMAT) {
+            throw new IllegalArgumentException("Not a game record: " + format);
+        }
+        ByteOrder order = in.order();
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        BitboardPosition start = new BitboardPosition();
+        PositionCodec.decode(in, start);
+        GameRecord record = new GameRecord(start);
+        int count = in.getShort() & 0xFFFF;
+        record.moves = new short[Math.max(count, 16)];
+        for (int i = 0; i < count; i++) {
+            record.moves[i] = in.getShort();
+        }
+        record.size = count;
+        in.order(order);
+        return record;
+    }
+
+    /**
+     * Checks whether the bytes at the buffer's current position hold a game record.
+     */
+    public static boolean isRecord(ByteBuffer in) {
+        return in.remaining() > 0 && (in.get(in.position()) & 0xFF) == FORMAT;
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Purpose:
+ * One game played without a display. Moves go in as board squares and come back as
+ * MoveResult values, so a server or a test can drive the rules directly.
+ *
+ * Design:
+ * - Every session owns its ChessModel and GameJournal; nothing is shared between
+ *   sessions, so different sessions can be played on different threads.
+ * - A single session is not thread safe. SessionManager confines each session to
+ *   its own virtual thread.
+ */
+public class GameSession {
+    private final long id;
+    private final ChessModel model = new ChessModel();
+    private final int[] moveBuffer = new int[MoveGenerator.MAX_MOVES];
+
+    /**
+     * Creates a session with a new game and a journal that records nothing.
+     * @param id The session number.
+     */
+    public GameSession(long id) {
+        this(id, new GameJournal(64, GameJournal.OFF));
+    }
+
+    /**
+     * Creates a session with a new game.
+     * @param id The session number.
+     * @param journal The journal this session's events are recorded in.
+     */
+    public GameSession(long id, GameJournal journal) {
+        this.id = id;
+        model.setJournal(journal);
+        model.startNewGame();
+    }
+
+    /**
+     * Plays a move for the player to move.
+     * @param from The square of the piece to move (row * 5 + column, from Pink's side).
+     * @param to The destination square.
+     * @return MOVED or GAME_WON if the move was played, otherwise why it was refused.
+     */
+    public MoveResult play(int from, int to) {
+        return model.tryMove(from, to);
+    }
+
+    /**
+     * Plays a move encoded with Move.encode().
+     */
+    public MoveResult play(int move) {
+        return model.tryMove(Move.from(move), Move.to(move));
+    }
+
+    /**
+     * Handles a click in screen coordinates, exactly like a click on the Swing board.
+     */
+    public MoveResult click(int x, int y) {
+        return model.executeMovement(x, y);
+    }
+
+    /**
+     * Takes back the last move.
+     * @return False if there was no move to take back.
+     */
+    public boolean undo() {
+        if (model.getUndoDepth() == 0) {
+            return false;
+        }
+        model.unmakeMove();
+        return true;
+    }
+
+    /**
+     * Throws the current game away and starts a new one.
+     */
+    public void newGame() {
+        model.startNewGame();
+    }
+
+    /**
+     * Returns the moves the player to move can play.
+     * @return A new array of moves encoded with Move.encode().
+     */
+    public int[] legalMoves() {
+        if (model.getPosition().isGameOver()) {
+            return new int[0];
+        }
+        int count = MoveGenerator.generate(model.getPosition(), moveBuffer);
+        return java.util.Arrays.copyOf(moveBuffer, count);
+    }
+
+    public boolean isGameOver() {
+        return model.getPosition().isGameOver();
+    }
+
+    /**
+     * Returns the winner of a finished game.
+     * @return BitboardPosition.PINK or BLUE, or BitboardPosition.EMPTY while the game goes on.
+     */
+    public int getWinner() {
+        BitboardPosition position = model.getPosition();
+        if (!position.isGameOver()) {
+            return BitboardPosition.EMPTY;
+        }
+        return position.pieces(BitboardPosition.PINK, BitboardPosition.SAU) != 0 ? BitboardPosition.PINK : BitboardPosition.BLUE;
+    }
+
+    public boolean isPinkTurn() {
+        return model.isPinkTurn();
+    }
+
+    /**
+     * Returns the piece type on a square (row * 5 + column, from Pink's side).
+     * @return One of the BitboardPosition type constants, or BitboardPosition.EMPTY.
+     */
+    public int pieceTypeAt(int sq) {
+        return model.getPosition().typeAt(sq);
+    }
+
+    /**
+     * Returns a copy of the current position, safe to keep after the session moves on.
+     */
+    public BitboardPosition snapshot() {
+        return new BitboardPosition(model.getPosition());
+    }
+
+    /**
+     * Returns the game played so far.
+     */
+    public GameRecord getGameRecord() {
+        return model.getGameRecord();
+    }
+
+    public long getPositionKey() {
+        return model.getPositionKey();
+    }
+
+    public int getMoveCount() {
+        return model.getUndoDepth();
+    }
+
+    public long getId() {
+        return id;
+    }
+}
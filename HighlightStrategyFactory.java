@@ -1,11 +1,24 @@
+/**
+ * Returns the highlight strategy of a piece type. Strategies hold no state, so one
+ * instance of each is shared by every caller.
+ *
+ * The strategies only know each piece's move pattern, not the pieces in the way. The
+ * board highlights with ChessModel.getLegalDestinations(), which does.
+ */
 public class HighlightStrategyFactory {
+    private static final HighlightStrategy TOR = new TorHighlightStrategy();
+    private static final HighlightStrategy RAM = new RamHighlightStrategy();
+    private static final HighlightStrategy SAU = new SauHighlightStrategy();
+    private static final HighlightStrategy XOR = new XorHighlightStrategy();
+    private static final HighlightStrategy BIZ = new BizHighlightStrategy();
+
     public static HighlightStrategy getStrategy(String pieceName) {
         switch (pieceName) {
-            case "Tor": return new TorHighlightStrategy();
-            case "Ram": return new RamHighlightStrategy();
-            case "Sau": return new SauHighlightStrategy();
-            case "Xor": return new XorHighlightStrategy();
-            case "Biz": return new BizHighlightStrategy();
+            case "Tor": return TOR;
+            case "Ram": return RAM;
+            case "Sau": return SAU;
+            case "Xor": return XOR;
+            case "Biz": return BIZ;
             default: throw new IllegalArgumentException("Invalid piece name: " + pieceName);
         }
     }
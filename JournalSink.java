@@ -0,0 +1,11 @@
+/**
+ * Receives events drained from a GameJournal. Records are packed longs;
+ * use the GameJournal accessors (or GameJournal.format) to read them.
+ */
+public interface JournalSink {
+    void publish(long timestamp, long record);
+
+    // Called after every batch of events
+    default void flush() {
+    }
+}
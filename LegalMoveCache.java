@@ -0,0 +1,83 @@
+/**
+ * Purpose:
+ * Answers "where can this piece go?" for one position. The board highlights these
+ * squares when a piece is selected, and ChessModel checks clicked moves against the
+ * same answer, so what is shown and what is allowed can never disagree.
+ *
+ * Design:
+ * - The first question in a position computes the destinations of every piece of the
+ *   side to move at once, one mask per square; every later question is an array read.
+ * - The masks come from BitboardPosition.attacks(), which stops sliding pieces at the
+ *   first piece in the way and leaves out squares held by their own side.
+ * - The masks belong to the position key they were computed for. invalidate() drops
+ *   them at once (ChessModel calls it on every move, flip and load); a changed key
+ *   drops them as well, so a change made straight to the bitboard is never missed.
+ * - Squares are in Pink's board coordinates, like the bitboard's.
+ */
+public class LegalMoveCache {
+    private final BitboardPosition position; // The position the masks are for
+    private final long[] destinations = new long[BitboardPosition.SQUARES]; // Legal destinations per square
+    private long movable = 0;      // Squares of the pieces that have at least one move
+    private long key = 0;          // Key of the position the masks were computed for
+    private boolean valid = false; // False until the masks are computed for the current position
+
+    public LegalMoveCache(BitboardPosition position) {
+        this.position = position;
+    }
+
+    /**
+     * Returns the squares the piece on a square can legally move to.
+     *
+     * @param sq The square of the piece, in Pink's board coordinates.
+     * @return A mask of destination squares; 0 if the square holds no piece of the
+     *         player to move, that piece cannot move, or the game is over.
+     */
+    public long destinations(int sq) {
+        update();
+        return destinations[sq];
+    }
+
+    /**
+     * Checks a move of the player to move against the rules.
+     */
+    public boolean isLegal(int from, int to) {
+        return (destinations(from) & (1L << to)) != 0;
+    }
+
+    /**
+     * Returns the squares of the pieces of the player to move that have a legal move.
+     */
+    public long movablePieces() {
+        update();
+        return movable;
+    }
+
+    /**
+     * Drops the masks; they are computed again when next asked for.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    // Computes the masks if the position has changed since they were last computed
+    private void update() {
+        if (valid && key == position.key()) {
+            return;
+        }
+        java.util.Arrays.fill(destinations, 0L);
+        movable = 0;
+        if (!position.isGameOver()) {
+            long pieces = position.occupancy(position.sideToMove());
+            while (pieces != 0) {
+                int sq = Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                destinations[sq] = position.attacks(sq);
+                if (destinations[sq] != 0) {
+                    movable |= 1L << sq;
+                }
+            }
+        }
+        key = position.key();
+        valid = true;
+    }
+}
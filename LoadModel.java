@@ -3,15 +3,30 @@ import javax.swing.JOptionPane;
 
 public class LoadModel {
     public static void loadGame(ChessModel model, ChessView view, String filename) {
+        if (readGame(model, filename)) {
+            // Update the turn label and the board display in ChessView
+            view.setTurnDisplay(model.isPinkTurn() ? "Pink's Turn" : "Blue's Turn");
+            view.updateBoard();
+
+            System.out.println("Game loaded successfully from " + filename);
+        } else {
+            view.setTurnDisplay(model.isPinkTurn() ? "Pink's Turn" : "Blue's Turn");
+        }
+    }
+
+    /**
+     * Reads a game saved in the text format into the model, without touching any view.
+     * This is also the import path for the binary formats (see ArchiveTool).
+     *
+     * @return True if the game was loaded; false if the file could not be read or was invalid.
+     */
+    public static boolean readGame(ChessModel model, String filename) {
         try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
             String line;
 
             if ((line = reader.readLine()) != null) {
                 boolean lastPlayedByPink = line.equalsIgnoreCase("Pink Turn");
                 model.setTurn(lastPlayedByPink); // Set the turn in the model
-
-                // Update the turn label in ChessView
-                view.setTurnDisplay(lastPlayedByPink ? "Pink's Turn" : "Blue's Turn");
             }
 
             ChessPieces[][] newBoard = new ChessPieces[8][5];
@@ -62,20 +77,16 @@ public class LoadModel {
             if (!pinkSauAlive || !blueSauAlive) {
                 System.err.println("Game file invalid: Missing one or both Kings.");
                 model.resetGame();
-                view.setTurnDisplay("Pink's Turn"); // Reset to default turn
-                return;
+                return false;
             }
 
             // Step 5: Update the model
             model.setChessBoard(newBoard);
-
-            // Step 6: Update the board display in ChessView
-            view.updateBoard();
-
-            System.out.println("Game loaded successfully from " + filename);
+            return true;
 
         } catch (IOException e) {
             System.err.println("Error loading the game: " + e.getMessage());
+            return false;
         }
     }
 
@@ -98,4 +109,3 @@ public class LoadModel {
     }
 
 }
-
@@ -1,12 +1,33 @@
 public class Main {
+    private static final String USAGE = "Usage: java Main [--computer pink|blue|both [millis per move] [--ponder]]";
+
     public static void main(String[] args) {
+        // Optional computer opponent: the side it plays must be spelled out
+        String computerSide = null;
+        if (args.length > 0) {
+            if (!args[0].equals("--computer") || args.length < 2
+                    || !args[1].toLowerCase().matches("pink|blue|both")) {
+                System.err.println(USAGE);
+                return;
+            }
+            computerSide = args[1].toLowerCase();
+        }
+
+        // Images and audio are decoded in the background while the windows are built,
+        // so the menu appears without waiting for them
+        ResourceLoader resources = ResourceLoader.getInstance();
+        resources.preloadStartupResources();
+        // The music is streamed from the file, so only a small buffer is kept in memory
+        ResourceLoader.Resource<StreamingMusicPlayer> musicController = resources.load("Music.wav", () -> {
+            StreamingMusicPlayer player = new StreamingMusicPlayer("Music.wav");
+            player.play();
+            return player;
+        });
+
         // Initialize the model
         ChessModel model = new ChessModel();
 
-        // Initialize the music controller with the background music file
-        MusicController musicController = new MusicController("Music.wav");
-
-        // Initialize the menu view and link it to the music controller
+        // Initialize the menu view and link it to the music player
         MenuView menuView = new MenuView(musicController);
 
         // Initialize the tutorial controller and link it to the menu view
@@ -27,6 +48,22 @@ public class Main {
         menuView.setLoadController(loadController);
         view.setControllers(gameFlowController, moveController, saveController, viewController);
 
+        if (computerSide != null) {
+            long millisPerMove = args.length > 2 && !args[2].startsWith("--") ? Long.parseLong(args[2]) : 200;
+            ComputerPlayer computerPlayer = new ComputerPlayer(model, moveController, millisPerMove);
+            computerPlayer.setColors(!computerSide.equals("blue"), !computerSide.equals("pink"));
+            // Think during the human's turns, so replies come at once
+            if (java.util.Arrays.asList(args).contains("--ponder")) {
+                PonderService ponderService = new PonderService(computerPlayer.getEngine().getTable());
+                computerPlayer.setPonderService(ponderService);
+                // The game window shows the analysis and offers the hint
+                ponderService.setListener(view::showAnalysis);
+                view.setComputerPlayer(computerPlayer);
+            }
+            moveController.setComputerPlayer(computerPlayer);
+            gameFlowController.setComputerPlayer(computerPlayer);
+        }
+
         // Show the menu to start the game
         menuView.showMenu();
     }
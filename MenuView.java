@@ -1,6 +1,5 @@
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
 
 public class MenuView {
     // Main menu frame
@@ -15,8 +14,8 @@ public class MenuView {
     // Controllers for game flow and persistence actions
     private GameFlowController gameFlowController; // Handles game flow actions
     private LoadController loadController;
-    // Music controller for toggling music
-    private final MusicController musicController;
+    // Music controller for toggling music; loaded in the background at start-up
+    private final ResourceLoader.Resource<StreamingMusicPlayer> musicController;
     // Tutorial controller for toggling tutorial
     private TutorialController tutorialController;
 
@@ -26,10 +25,11 @@ public class MenuView {
     private static final Color BUTTON_HOVER = Color.DARK_GRAY;
 
     /**
-     * Constructor initializes the MenuView with a MusicController.
-     * @param musicController The controller managing background music.
+     * Constructor initializes the MenuView with the background music player.
+     * @param musicController The music player, as queued with ResourceLoader. The menu
+     *                        works before it is ready; the music button waits for it.
      */
-    public MenuView(MusicController musicController) {
+    public MenuView(ResourceLoader.Resource<StreamingMusicPlayer> musicController) {
         this.musicController = musicController;
     }
     
@@ -73,14 +73,15 @@ public class MenuView {
         mainPanel.add(titleLabel);
 
         JLabel imageLabel = new JLabel();
-        File imageFile = new File("menuImage.png");
-        if (imageFile.exists()) {
-            ImageIcon imageIcon = new ImageIcon("menuImage.png");
-            Image scaledImage = imageIcon.getImage().getScaledInstance(500, 300, Image.SCALE_SMOOTH);
-            imageLabel.setIcon(new ImageIcon(scaledImage));
-        } else {
-            System.err.println("Image file not found: " + imageFile.getAbsolutePath());
-        }
+        // The art is decoded in the background; the frame is shown without waiting for it
+        imageLabel.setPreferredSize(new Dimension(ResourceLoader.MENU_IMAGE_WIDTH, ResourceLoader.MENU_IMAGE_HEIGHT));
+        ResourceLoader.getInstance()
+                .scaledIcon(ResourceLoader.MENU_IMAGE, ResourceLoader.MENU_IMAGE_WIDTH, ResourceLoader.MENU_IMAGE_HEIGHT)
+                .whenReady(icon -> {
+                    if (icon != null) {
+                        imageLabel.setIcon(icon);
+                    }
+                });
         imageLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
         mainPanel.add(Box.createVerticalStrut(20)); // Add spacing
         mainPanel.add(imageLabel);
@@ -137,6 +138,7 @@ public class MenuView {
         mainPanel.add(buttonPanel);
 
         mainFrame.add(mainPanel);
+        StartupTimer.watchFirstFrame(mainFrame);
         mainFrame.setVisible(true);
     }
     
@@ -164,12 +166,17 @@ public class MenuView {
     }
 
     /**
-     * Toggles the background music on or off using the MusicController.
+     * Toggles the background music on or off.
      * Updates the button text to reflect the current state.
      */
     public void music() {
-        musicController.music();
-        if (musicController.isPlaying()) {
+        // Loads the music now if the user is faster than the background loader
+        StreamingMusicPlayer controller = musicController.get();
+        if (controller == null) {
+            return;
+        }
+        controller.music();
+        if (controller.isPlaying()) {
             musicButton.setText("📢");
         } else {
             musicButton.setText("🔇");
@@ -0,0 +1,36 @@
+/**
+ * Purpose:
+ * Helper methods for moves packed into a single int, so move lists can be kept in
+ * primitive arrays. Bits 0-5 hold the source square and bits 6-11 the destination
+ * square, both as BitboardPosition square indices (row * 5 + column, Pink's side).
+ */
+public final class Move {
+
+    // Value used for "no move"
+    public static final int NONE = 0;
+
+    private Move() {
+    }
+
+    public static int encode(int from, int to) {
+        return from | (to << 6);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    /**
+     * Formats a move as "(x, y) -> (x, y)" in Pink's board coordinates.
+     */
+    public static String toString(int move) {
+        int from = from(move);
+        int to = to(move);
+        return "(" + from / BitboardPosition.COLS + ", " + from % BitboardPosition.COLS + ") -> ("
+                + to / BitboardPosition.COLS + ", " + to % BitboardPosition.COLS + ")";
+    }
+}
@@ -1,7 +1,7 @@
 /**
  * Purpose:
  * This class serves as the controller for managing moves in the chess game. 
- * It handles player input, validates and executes moves, transforms pieces (Xor <-> Tor), 
+ * It handles player input, validates and executes moves (the model transforms Xor <-> Tor),
  * updates the view, and controls game flow, including turn switching and game-over logic.
  */
 
@@ -10,11 +10,20 @@ public class MoveController {
     private ChessModel model;
     private ChessView view;
     private FlipScreenController flipScreenController; 
+    private ComputerPlayer computerPlayer; // Optional computer opponent
 
     public MoveController(ChessModel model, ChessView view) {
         this.model = model;
         this.view = view;
-        this.flipScreenController = new FlipScreenController(view, model);
+        this.flipScreenController = new FlipScreenController(model);
+    }
+
+    /**
+     * Lets a computer player take the turns of one or both colors.
+     * @param computerPlayer The computer player, or null for two human players.
+     */
+    public void setComputerPlayer(ComputerPlayer computerPlayer) {
+        this.computerPlayer = computerPlayer;
     }
 
     /**
@@ -22,114 +31,60 @@ public class MoveController {
      * @return True if the move ends the game; false otherwise.
      */
     public boolean executeMovement(int x, int y) {
-        // Get the selected piece from the model
-        ChessPieces selectedPiece = model.getSelectedPiece();
-
-        // This statement is to ensure that move counts for TOR and XOR is not being counted when the board flips
-        // This is to ensure that the transformation happen correctly
-        if (selectedPiece instanceof Tor) {
-            ((Tor) selectedPiece).PlayerMoved();
+        // Clicks on the board are ignored while it is the computer's turn
+        if (computerPlayer != null && computerPlayer.playsCurrentTurn() && !computerPlayer.isMoving()) {
+            return false;
         }
 
-        if (selectedPiece instanceof Xor) {
-            ((Xor) selectedPiece).PlayerMoved();
+        // Validate and execute the move.
+        // The model's bitboard counts Tor and Xor moves, so only successful moves count
+        // and flipping the board never does. A Tor/Xor transformation happens inside the move.
+        ChessPieces selected = model.getSelectedPiece();
+        MoveResult result;
+        // The move and the flip that follows reach the view as a single change
+        model.beginUpdate();
+        try {
+            result = model.executeMovement(x, y);
+            if (result == MoveResult.MOVED) {
+                flipScreenController.flipScreen();
+            }
+        } finally {
+            model.endUpdate();
+        }
+        if (result.isRejected()) {
+            view.showMoveRejected(rejectionMessage(result, selected));
         }
-
-        // Validate and execute the move
-        boolean correctMove = model.executeMovement(x, y);
-
-        // Check if tor and xor should transform
-        XorMoves();
-        TorMoves();
-
-        // Update the board view
-        view.updateBoard();
 
         /* If the move is correct (meaning selected piece has moved), the game will check two things
          - 1) If the game is still going (meaning sau isn't captured) the turn will switch and board flips
          - 2) If the game is over, game over message will be displayed
         */
-        if (correctMove) {
-            if (!model.isGameOver(ChessPieces.Color.PINK) && !model.isGameOver(ChessPieces.Color.BLUE)) {
-                flipScreenController.flipScreen(); 
-                view.switchTurn(); 
-            } else {
-                String winner = model.isPinkTurn() ? "Blue" : "Pink";
-                view.showGameOverMessage(winner);
+        if (result == MoveResult.MOVED) {
+            view.switchTurn(); 
+            if (computerPlayer != null) {
+                computerPlayer.turnStarted();
             }
-        } else {
-            // Update the board view again in case of invalid move
-            view.updateBoard();
+        } else if (result == MoveResult.GAME_WON) {
+            String winner = model.isPinkTurn() ? "Blue" : "Pink";
+            view.showGameOverMessage(winner);
         }
         // Return true if the game is over, false otherwise
-        return correctMove && (model.isGameOver(ChessPieces.Color.PINK) || model.isGameOver(ChessPieces.Color.BLUE));
+        return result == MoveResult.GAME_WON;
     }
 
-    /**
-     * Processes all Xor pieces on the board and transforms them to Tor pieces
-     * if the conditions are met (countMoves is even and greater than 0).
-     */
-    private void XorMoves() {
-        ChessPieces[][] board = model.getChessBoard();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 5; j++) {
-                ChessPieces piece = board[i][j];
-                if (piece instanceof Xor) {
-                    Xor xorPiece = (Xor) piece;
-                    if (xorPiece.getCountMoves() % 2 == 0 && xorPiece.getCountMoves() > 0) {
-                        XorToTor(i, j); // Transform the piece
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Transforms a specific Xor piece into a Tor piece at the given position.
-     * @param x The x-coordinate of the piece.
-     * @param y The y-coordinate of the piece.
-     */
-    private void XorToTor(int x, int y) {
-        ChessPieces[][] board = model.getChessBoard();
-        ChessPieces xorPiece = board[x][y];
-        if (xorPiece instanceof Xor) {
-            ChessPieces torPiece = new Tor(x, y, xorPiece.getColor());
-            board[x][y] = torPiece; // Replace the Xor piece with a Tor piece
-            view.updateBoard(); // Update the board view
-        }
-    }
-
-    /**
-     * Processes all Tor pieces on the board and transforms them to Xor pieces
-     * if the conditions are met (countMoves is even and greater than 0).
-     */
-    private void TorMoves() {
-        ChessPieces[][] board = model.getChessBoard();
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 5; j++) {
-                ChessPieces piece = board[i][j];
-                if (piece instanceof Tor) {
-                    Tor torPiece = (Tor) piece;
-                    if (torPiece.getCountMoves() % 2 == 0 && torPiece.getCountMoves() > 0) {
-                        TorToXor(i, j); // Transform the piece
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Transforms a specific Tor piece into a Xor piece at the given position.
-     * @param x The x-coordinate of the piece.
-     * @param y The y-coordinate of the piece.
-     */
-    private void TorToXor(int x, int y) {
-        ChessPieces[][] board = model.getChessBoard();
-        ChessPieces torPiece = board[x][y];
-        if (torPiece instanceof Tor) {
-            ChessPieces xorPiece = new Xor(x, y, torPiece.getColor());
-            board[x][y] = xorPiece; 
-            view.updateBoard(); 
+    // The text shown to the player for a refused click
+    private static String rejectionMessage(MoveResult result, ChessPieces selected) {
+        switch (result) {
+            case NO_PIECE:
+                return "No piece at this position to select.";
+            case NOT_YOUR_TURN:
+                return "It is not your turn.";
+            case OWN_PIECE:
+                return "Cannot move to a position occupied by your own piece.";
+            case GAME_OVER:
+                return "The game is over.";
+            default:
+                return "Invalid move for " + (selected != null ? selected.getName() : "this piece");
         }
     }
 }
@@ -0,0 +1,92 @@
+/**
+ * Purpose:
+ * One completed change of a game, as delivered by MoveEventStream: a move, a move
+ * taken back, or a new position (new game, load, board edit).
+ *
+ * Design:
+ * - Immutable, so one event object is shared by every subscriber.
+ * - Every event carries the PositionSnapshot published with it. A subscriber that
+ *   missed events (see MoveEventStream.Overflow) is back in sync with the newest one.
+ * - Events are numbered. A gap in the numbers means that events were dropped.
+ */
+public final class MoveEvent {
+
+    public enum Kind {
+        MOVE,     // A move was played
+        UNDO,     // The last move was taken back
+        POSITION  // The position was set up, loaded or changed by several moves at once
+    }
+
+    private final long sequence;
+    private final Kind kind;
+    private final int move;          // Move.NONE for POSITION
+    private final int pieceType;     // Type of the moved piece before the move, or EMPTY
+    private final int capturedType;  // Type of the captured piece, or EMPTY
+    private final int resultType;    // Type of the moved piece after the move; differs after a transformation
+    private final PositionSnapshot position;
+
+    MoveEvent(long sequence, Kind kind, int move, int pieceType, int capturedType, int resultType,
+              PositionSnapshot position) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.move = move;
+        this.pieceType = pieceType;
+        this.capturedType = capturedType;
+        this.resultType = resultType;
+        this.position = position;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the move, encoded with Move.encode() in Pink's board coordinates. For
+     * UNDO it is the move that was taken back.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    public int getPieceType() {
+        return pieceType;
+    }
+
+    public int getCapturedType() {
+        return capturedType;
+    }
+
+    public int getResultType() {
+        return resultType;
+    }
+
+    public boolean isCapture() {
+        return capturedType != BitboardPosition.EMPTY;
+    }
+
+    public boolean isTransformation() {
+        return kind == Kind.MOVE && resultType != pieceType;
+    }
+
+    /**
+     * Returns the position after the change, including the flip that follows a move.
+     */
+    public PositionSnapshot getPosition() {
+        return position;
+    }
+
+    @Override
+    public String toString() {
+        if (kind == Kind.POSITION) {
+            return sequence + " POSITION";
+        }
+        return sequence + " " + kind + " " + BitboardPosition.nameOf(pieceType) + " "
+                + Move.from(move) + "-" + Move.to(move)
+                + (isCapture() ? " x" + BitboardPosition.nameOf(capturedType) : "")
+                + (isTransformation() ? " =" + BitboardPosition.nameOf(resultType) : "");
+    }
+}
@@ -0,0 +1,147 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Purpose:
+ * Shows that the move path does not slow down as observers attach to the model's
+ * MoveEventStream. For 0, 1, 10, 100 and 1000 subscribers, random legal games are
+ * played the way MoveController plays a turn (move and flip in one update) and the
+ * latency of every turn is recorded.
+ *
+ * Every tenth subscriber is slow (it sleeps on every batch and conflates); the others
+ * take everything as it comes. Printed per row: turn latency percentiles, events
+ * delivered and events dropped for the slow subscribers.
+ *
+ * Usage: java MoveEventBenchmark [turns per row] [slow subscriber pause in ms]
+ */
+public class MoveEventBenchmark {
+
+    private static final int[] SUBSCRIBERS = {0, 1, 10, 100, 1000};
+
+    public static void main(String[] args) throws Exception {
+        int turns = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        long pauseMillis = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        // Warm-up so the first row is not measured with cold code
+        run(10, turns / 4, pauseMillis);
+
+        System.out.printf("%11s %8s %8s %8s %9s %12s %10s%n",
+                "subscribers", "p50 ns", "p99 ns", "p99.9 ns", "mean ns", "delivered", "dropped");
+        for (int count : SUBSCRIBERS) {
+            run(count, turns, pauseMillis).print(count);
+        }
+    }
+
+    // Results of one row
+    private static final class Row {
+        long[] latencies;
+        long delivered;
+        long dropped;
+
+        void print(int subscribers) {
+            Arrays.sort(latencies);
+            double mean = Arrays.stream(latencies).average().orElse(0);
+            System.out.printf(Locale.ROOT, "%11d %8d %8d %8d %9.0f %,12d %,10d%n", subscribers,
+                    percentile(0.50), percentile(0.99), percentile(0.999), mean, delivered, dropped);
+        }
+
+        private long percentile(double p) {
+            return latencies[Math.min(latencies.length - 1, (int) (p * latencies.length))];
+        }
+    }
+
+    private static Row run(int subscriberCount, int turns, long pauseMillis) throws InterruptedException {
+        ChessModel model = new ChessModel();
+        model.setJournal(new GameJournal(64, GameJournal.OFF));
+        MoveEventStream stream = model.getMoveEvents();
+        LongAdder delivered = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(subscriberCount);
+        for (int i = 0; i < subscriberCount; i++) {
+            boolean slow = i % 10 == 9;
+            stream.subscribe(new Counter(delivered, finished, slow ? pauseMillis : 0), MoveEventStream.DEFAULT_CAPACITY,
+                    slow ? MoveEventStream.Overflow.CONFLATE : MoveEventStream.Overflow.DROP_OLDEST);
+        }
+
+        Random random = new Random(42);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        long[] latencies = new long[turns];
+        model.startNewGame();
+        for (int turn = 0; turn < turns; turn++) {
+            int count = MoveGenerator.generate(model.getPosition(), moves);
+            if (count == 0 || model.isGameOver()) {
+                model.startNewGame();
+                count = MoveGenerator.generate(model.getPosition(), moves);
+            }
+            int move = moves[random.nextInt(count)];
+            long start = System.nanoTime();
+            model.beginUpdate();
+            try {
+                if (model.tryMove(Move.from(move), Move.to(move)) == MoveResult.MOVED) {
+                    model.flipBoard();
+                }
+            } finally {
+                model.endUpdate();
+            }
+            latencies[turn] = System.nanoTime() - start;
+        }
+        stream.close();
+        // Every subscriber gets onComplete once its buffer is delivered; the next row
+        // starts only after that
+        finished.await();
+
+        Row row = new Row();
+        row.latencies = latencies;
+        row.delivered = delivered.sum();
+        row.dropped = stream.getDroppedCount();
+        return row;
+    }
+
+    // Counts the events it gets, optionally pausing on every batch like a slow consumer
+    private static final class Counter implements Flow.Subscriber<List<MoveEvent>> {
+        private final LongAdder delivered;
+        private final CountDownLatch finished;
+        private final long pauseMillis;
+        private Flow.Subscription subscription;
+
+        Counter(LongAdder delivered, CountDownLatch finished, long pauseMillis) {
+            this.delivered = delivered;
+            this.finished = finished;
+            this.pauseMillis = pauseMillis;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(pauseMillis > 0 ? 1 : Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<MoveEvent> events) {
+            delivered.add(events.size());
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            System.err.println("Subscriber failed: " + error);
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            finished.countDown();
+        }
+    }
+}
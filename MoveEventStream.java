@@ -0,0 +1,324 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Purpose:
+ * Tells any number of observers (spectator windows, recorders, analysis) about every
+ * completed change of a ChessModel, without slowing down the thread that plays the moves.
+ *
+ * Design:
+ * - A java.util.concurrent.Flow publisher of event batches (List of MoveEvent).
+ * - The move path only appends the event to a lock-free queue and wakes the dispatcher
+ *   thread if it sleeps, so its cost does not depend on the number of subscribers.
+ *   With no subscriber at all it returns at once and allocates nothing.
+ * - The dispatcher thread takes everything queued since it last ran as one batch and
+ *   hands that batch to every subscriber's buffer.
+ * - Each subscriber has a bounded buffer and its own demand (Flow backpressure). Batches
+ *   are delivered on a separate thread per subscriber, one at a time and only while
+ *   the subscriber has requested more, so a slow subscriber never holds up the others.
+ * - When a buffer is full the subscriber's Overflow policy decides: DROP_OLDEST drops
+ *   the oldest batch, CONFLATE replaces everything waiting with the newest event. Every
+ *   event carries the position after it, so the newest event alone is enough to catch
+ *   up. Event numbers show where events were dropped.
+ */
+public class MoveEventStream implements Flow.Publisher<List<MoveEvent>> {
+
+    /**
+     * What happens to a subscriber's events when its buffer is full.
+     */
+    public enum Overflow {
+        DROP_OLDEST, // Keep the newest batches; the oldest one is dropped
+        CONFLATE     // Keep only the newest event
+    }
+
+    // Buffer size per subscriber, in batches
+    public static final int DEFAULT_CAPACITY = 64;
+    // Events per batch at most, so one batch never grows without limit
+    private static final int MAX_BATCH = 256;
+
+    private final ConcurrentLinkedQueue<MoveEvent> queue = new ConcurrentLinkedQueue<>();
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Executor deliveryExecutor;
+    private final AtomicLong dropped = new AtomicLong();
+    private long nextSequence = 1; // Only used by the publishing thread
+
+    private Thread dispatcher; // Started with the first subscriber
+    private volatile boolean dispatcherWaiting = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a stream that delivers to every subscriber on virtual threads.
+     */
+    public MoveEventStream() {
+        this(runnable -> Thread.ofVirtual().name("move-events-delivery").start(runnable));
+    }
+
+    /**
+     * Creates a stream that delivers to subscribers with the given executor.
+     */
+    public MoveEventStream(Executor deliveryExecutor) {
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    /**
+     * Subscribes with a buffer of DEFAULT_CAPACITY batches that drops the oldest batch
+     * when full.
+     */
+    @Override
+    public void subscribe(Flow.Subscriber<? super List<MoveEvent>> subscriber) {
+        subscribe(subscriber, DEFAULT_CAPACITY, Overflow.DROP_OLDEST);
+    }
+
+    /**
+     * Subscribes to the events published from now on.
+     *
+     * @param subscriber The subscriber; it is given its subscription on this thread.
+     * @param capacity   How many batches may wait for the subscriber before the overflow policy applies.
+     * @param overflow   What to do when the buffer is full.
+     */
+    public void subscribe(Flow.Subscriber<? super List<MoveEvent>> subscriber, int capacity, Overflow overflow) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+        Subscription subscription = new Subscription(subscriber, capacity, overflow);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+            return;
+        }
+        if (!subscription.cancelled) {
+            subscriptions.add(subscription);
+            startDispatcher();
+        }
+    }
+
+    /**
+     * Returns true if anyone is subscribed. Publishers may skip building an event otherwise.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Returns how many events were dropped for full buffers, over all subscribers.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Publishes a change. Must always be called from the same thread (the one that
+     * owns the model); returns without waiting for any subscriber.
+     */
+    void publish(MoveEvent.Kind kind, int move, int pieceType, int capturedType, int resultType,
+                 PositionSnapshot position) {
+        if (closed || subscriptions.isEmpty()) {
+            return;
+        }
+        queue.offer(new MoveEvent(nextSequence++, kind, move, pieceType, capturedType, resultType, position));
+        if (dispatcherWaiting) {
+            LockSupport.unpark(dispatcher);
+        }
+    }
+
+    /**
+     * Stops the stream. Events already published are still delivered, then every
+     * subscriber gets onComplete().
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (dispatcher != null) {
+            LockSupport.unpark(dispatcher);
+        } else {
+            completeAll();
+        }
+    }
+
+    private synchronized void startDispatcher() {
+        if (dispatcher == null && !closed) {
+            dispatcher = new Thread(this::dispatch, "move-events");
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        }
+    }
+
+    // Runs on the dispatcher thread: moves queued events into the subscribers' buffers
+    private void dispatch() {
+        List<MoveEvent> batch = new ArrayList<>();
+        while (true) {
+            boolean stopping = closed;
+            MoveEvent event;
+            while (batch.size() < MAX_BATCH && (event = queue.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                List<MoveEvent> items = List.copyOf(batch);
+                batch.clear();
+                for (Subscription subscription : subscriptions) {
+                    subscription.offer(items);
+                }
+                continue;
+            }
+            if (stopping) {
+                break;
+            }
+            // Checked again after announcing the wait, so no wake-up from publish() is lost
+            dispatcherWaiting = true;
+            if (queue.isEmpty() && !closed) {
+                LockSupport.park(this);
+            }
+            dispatcherWaiting = false;
+        }
+        completeAll();
+    }
+
+    private void completeAll() {
+        for (Subscription subscription : subscriptions) {
+            subscription.complete();
+        }
+        subscriptions.clear();
+    }
+
+    // One subscriber's buffer, demand and delivery
+    private final class Subscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super List<MoveEvent>> subscriber;
+        private final int capacity;
+        private final Overflow overflow;
+        private final ArrayDeque<List<MoveEvent>> buffer = new ArrayDeque<>(); // Guarded by this
+        private final AtomicLong demand = new AtomicLong();
+        // True while a delivery task is queued or running, so deliveries never overlap
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean cancelled = false;
+        private volatile boolean completing = false;
+        private volatile Throwable error = null;
+        private volatile boolean terminated = false; // Set by the delivery task once onError or onComplete went out
+
+        Subscription(Flow.Subscriber<? super List<MoveEvent>> subscriber, int capacity, Overflow overflow) {
+            this.subscriber = subscriber;
+            this.capacity = capacity;
+            this.overflow = overflow;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested " + n + " batches; must be positive");
+            } else {
+                demand.getAndAccumulate(n, (current, more) -> current + more < 0 ? Long.MAX_VALUE : current + more);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            synchronized (this) {
+                buffer.clear();
+            }
+        }
+
+        // Called by the dispatcher thread
+        void offer(List<MoveEvent> items) {
+            synchronized (this) {
+                if (buffer.size() < capacity) {
+                    buffer.add(items);
+                } else if (overflow == Overflow.DROP_OLDEST) {
+                    dropped.addAndGet(buffer.poll().size());
+                    buffer.add(items);
+                } else {
+                    long lost = items.size() - 1;
+                    for (List<MoveEvent> waiting : buffer) {
+                        lost += waiting.size();
+                    }
+                    dropped.addAndGet(lost);
+                    buffer.clear();
+                    buffer.add(List.of(items.get(items.size() - 1)));
+                }
+            }
+            schedule();
+        }
+
+        void complete() {
+            completing = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                deliveryExecutor.execute(this);
+            }
+        }
+
+        // Delivery task: hands out buffered batches while there is demand
+        @Override
+        public void run() {
+            try {
+                deliver();
+            } finally {
+                scheduled.set(false);
+            }
+            // Work that arrived while the flag was still set
+            if (!cancelled && !terminated && (error != null || (completing && isEmpty())
+                    || (demand.get() > 0 && !isEmpty()))) {
+                schedule();
+            }
+        }
+
+        private void deliver() {
+            if (terminated) {
+                return;
+            }
+            Throwable failure = error;
+            if (failure != null) {
+                terminated = true;
+                cancel();
+                subscriber.onError(failure);
+                return;
+            }
+            while (!cancelled && demand.get() > 0) {
+                List<MoveEvent> items;
+                synchronized (this) {
+                    items = buffer.poll();
+                }
+                if (items == null) {
+                    break;
+                }
+                demand.updateAndGet(current -> current == Long.MAX_VALUE ? current : current - 1);
+                try {
+                    subscriber.onNext(items);
+                } catch (RuntimeException e) {
+                    // A failing subscriber is dropped; the others carry on
+                    terminated = true;
+                    cancel();
+                    subscriber.onError(e);
+                    return;
+                }
+            }
+            if (completing && !cancelled && isEmpty()) {
+                terminated = true;
+                cancelled = true;
+                subscriber.onComplete();
+            }
+        }
+
+        private synchronized boolean isEmpty() {
+            return buffer.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Purpose:
+ * Generates every legal move for the side to move without going through the
+ * ChessPieces objects. Moves are written into a caller-supplied int array (see Move),
+ * so generating moves does not allocate anything.
+ *
+ * Design:
+ * - Uses the attack tables and rays of BitboardPosition, so the Tor, Xor, Biz, Ram
+ *   and Sau rules are exactly the ones the model uses to validate a click.
+ * - BitboardPosition keeps Pink's point of view, so the board flip done by
+ *   FlipScreenController after every turn needs no special handling here: Pink Rams
+ *   always walk towards row 0 and Blue Rams towards row 7 until they turn around.
+ * - Kwazam has no check rule, so every move that follows the piece rules is legal.
+ *   Once a Sau has been captured the game is over and no moves are generated.
+ */
+public final class MoveGenerator {
+
+    // More than the highest possible number of moves in one position
+    public static final int MAX_MOVES = 128;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * Writes all legal moves of the side to move into the buffer.
+     *
+     * @param position The position to generate moves for.
+     * @param moves    Buffer receiving the moves; must hold at least MAX_MOVES entries.
+     * @return The number of moves written.
+     */
+    public static int generate(BitboardPosition position, int[] moves) {
+        if (position.isGameOver()) {
+            return 0;
+        }
+        int color = position.sideToMove();
+        int count = 0;
+        for (int type = 0; type < BitboardPosition.TYPES; type++) {
+            long own = position.pieces(color, type);
+            while (own != 0) {
+                int from = Long.numberOfTrailingZeros(own);
+                own &= own - 1;
+                long targets = position.attacks(from, color, type);
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    moves[count++] = Move.encode(from, to);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes only the capturing moves of the side to move into the buffer.
+     *
+     * @param position The position to generate captures for.
+     * @param moves    Buffer receiving the moves; must hold at least MAX_MOVES entries.
+     * @return The number of moves written.
+     */
+    public static int generateCaptures(BitboardPosition position, int[] moves) {
+        if (position.isGameOver()) {
+            return 0;
+        }
+        int color = position.sideToMove();
+        long enemies = position.occupancy(1 - color);
+        int count = 0;
+        for (int type = 0; type < BitboardPosition.TYPES; type++) {
+            long own = position.pieces(color, type);
+            while (own != 0) {
+                int from = Long.numberOfTrailingZeros(own);
+                own &= own - 1;
+                long targets = position.attacks(from, color, type) & enemies;
+                while (targets != 0) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    moves[count++] = Move.encode(from, to);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the legal moves of the side to move.
+     *
+     * @param position The position to count moves for.
+     * @return The number of legal moves.
+     */
+    public static int countMoves(BitboardPosition position) {
+        if (position.isGameOver()) {
+            return 0;
+        }
+        int color = position.sideToMove();
+        int count = 0;
+        for (int type = 0; type < BitboardPosition.TYPES; type++) {
+            long own = position.pieces(color, type);
+            while (own != 0) {
+                int from = Long.numberOfTrailingZeros(own);
+                own &= own - 1;
+                count += Long.bitCount(position.attacks(from, color, type));
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Purpose:
+ * Outcome of a click or move handed to the rules (ChessModel.executeMovement,
+ * ChessModel.tryMove and GameSession). Callers decide how to show a rejection, so the
+ * rules never open a dialog and can run without a display.
+ */
+public enum MoveResult {
+    SELECTED,       // A piece of the player to move was selected
+    MOVED,          // The move was played and the turn passed to the other player
+    GAME_WON,       // The move was played and captured the opposing Sau
+    NO_PIECE,       // Nothing to select on that square
+    NOT_YOUR_TURN,  // The piece belongs to the player who is not to move
+    OWN_PIECE,      // The target square holds a piece of the moving player
+    ILLEGAL_MOVE,   // The piece cannot move to the target square
+    GAME_OVER;      // The game has already ended
+
+    /**
+     * Checks whether a move was played.
+     */
+    public boolean isMove() {
+        return this == MOVED || this == GAME_WON;
+    }
+
+    /**
+     * Checks whether the click or move was refused.
+     */
+    public boolean isRejected() {
+        return ordinal() >= NO_PIECE.ordinal();
+    }
+}
@@ -0,0 +1,143 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Purpose:
+ * Runs several SearchEngine threads on the same root position (Lazy SMP).
+ *
+ * Design:
+ * - All threads share one lock-free TranspositionTable. The helpers fill it with
+ *   results that the main thread picks up, which is where the speed-up comes from.
+ * - Each thread owns its engine: position copy, move buffers and killers are created
+ *   on that thread and never touched by another one.
+ * - Helpers start at alternating depths so they do not all search the same tree.
+ * - The main thread decides when the search ends and its move is the one returned;
+ *   the helpers are stopped through a shared flag as soon as it is done.
+ */
+public class ParallelSearch {
+    private final SearchEngine mainEngine;
+    private final TranspositionTable table;
+    private final int helperCount;
+    private final ExecutorService helpers;
+    private final ThreadLocal<SearchEngine> helperEngine;
+    private final AtomicBoolean stopHelpers = new AtomicBoolean();
+    private int maxDepth = SearchEngine.MAX_PLY - 1;
+    private long totalNodes;
+
+    /**
+     * Creates a parallel search.
+     *
+     * @param helperCount    Number of helper threads besides the calling thread.
+     * @param tableMegabytes Size of the shared transposition table.
+     */
+    public ParallelSearch(int helperCount, int tableMegabytes) {
+        this.table = new TranspositionTable(tableMegabytes);
+        this.mainEngine = new SearchEngine(table);
+        this.helperCount = Math.max(0, helperCount);
+        this.helperEngine = ThreadLocal.withInitial(() -> {
+            SearchEngine engine = new SearchEngine(table);
+            engine.setSharedStop(stopHelpers);
+            engine.setTimeLimit(0);
+            return engine;
+        });
+        this.helpers = this.helperCount == 0 ? null : Executors.newFixedThreadPool(this.helperCount, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setTimeLimit(long millis) {
+        mainEngine.setTimeLimit(millis);
+    }
+
+    public void setNodeLimit(long nodes) {
+        mainEngine.setNodeLimit(nodes);
+    }
+
+    public void setMaxDepth(int depth) {
+        this.maxDepth = depth;
+        mainEngine.setMaxDepth(depth);
+    }
+
+    /**
+     * Searches a position with all threads and returns the main thread's best move.
+     *
+     * @param root The position to search; it is not modified.
+     * @return The best move, or Move.NONE if the side to move has no moves.
+     */
+    public int search(BitboardPosition root) {
+        stopHelpers.set(false);
+        List<Future<Long>> running = new ArrayList<>(helperCount);
+        for (int i = 0; i < helperCount; i++) {
+            final int startDepth = 1 + ((i + 1) & 1);
+            running.add(helpers.submit(() -> {
+                SearchEngine engine = helperEngine.get();
+                engine.setMaxDepth(maxDepth);
+                engine.setStartDepth(startDepth);
+                engine.search(root);
+                return engine.getNodes();
+            }));
+        }
+
+        int move = mainEngine.search(root);
+        stopHelpers.set(true);
+
+        totalNodes = mainEngine.getNodes();
+        for (Future<Long> helper : running) {
+            try {
+                totalNodes += helper.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Search helper failed: " + e.getCause());
+            }
+        }
+        return move;
+    }
+
+    /**
+     * Stops a running search. Safe to call from any thread.
+     */
+    public void stop() {
+        mainEngine.stop();
+        stopHelpers.set(true);
+    }
+
+    /**
+     * Stops the helper threads for good.
+     */
+    public void shutdown() {
+        if (helpers != null) {
+            helpers.shutdownNow();
+        }
+    }
+
+    public int getBestScore() {
+        return mainEngine.getBestScore();
+    }
+
+    public int getCompletedDepth() {
+        return mainEngine.getCompletedDepth();
+    }
+
+    /**
+     * Returns the nodes searched by all threads together in the last search.
+     */
+    public long getNodes() {
+        return totalNodes;
+    }
+
+    public int getThreadCount() {
+        return helperCount + 1;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Purpose:
+ * Counts the leaf nodes of the move tree up to a given depth (perft) and reports how
+ * fast MoveGenerator and BitboardPosition.makeMove/unmakeMove run.
+ *
+ * The node counts only depend on the rules, so a change in them after editing the
+ * move generator means a rule has changed. Run with -ea to also check that the
+ * incrementally updated score of every position matches a full recount
+ * (BitboardPosition.computeScore()); the timings are then not meaningful.
+ *
+ * Usage: java [-ea] Perft [depth]
+ */
+public class Perft {
+
+    // Move buffers for every ply, allocated once
+    private final int[][] moveBuffers;
+    private final BitboardPosition position;
+
+    /**
+     * Creates a perft driver for a position.
+     *
+     * @param position The position to count from; it is restored after every run.
+     * @param maxDepth The deepest depth that will be requested.
+     */
+    public Perft(BitboardPosition position, int maxDepth) {
+        this.position = position;
+        this.moveBuffers = new int[maxDepth + 1][MoveGenerator.MAX_MOVES];
+    }
+
+    /**
+     * Counts the positions reached after exactly depth moves.
+     *
+     * @param depth The number of plies to search.
+     * @return The number of leaf nodes.
+     */
+    public long perft(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        if (depth == 1) {
+            return MoveGenerator.countMoves(position);
+        }
+        int[] moves = moveBuffers[depth];
+        int count = MoveGenerator.generate(position, moves);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            nodes += perft(depth - 1);
+            position.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+
+        BitboardPosition position = new BitboardPosition();
+        position.setStartPosition();
+        Perft perft = new Perft(position, maxDepth);
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            long start = System.nanoTime();
+            long nodes = perft.perft(depth);
+            long elapsed = Math.max(1, System.nanoTime() - start);
+            long nodesPerSecond = nodes * 1_000_000_000L / elapsed;
+            System.out.printf("perft(%d) = %d  time %.3f s  %,d nodes/s%n",
+                    depth, nodes, elapsed / 1e9, nodesPerSecond);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+
+/**
+ * Purpose:
+ * Uses the time a human player spends thinking. As soon as the human's turn begins the
+ * position is analysed on a background thread: first for a hint (the best move for the
+ * human), then for the engine's answer to each move the human might play. When the
+ * human's move arrives, the answer is usually already known.
+ *
+ * Design:
+ * - One daemon worker thread with its own SearchEngine. The engine shares the
+ *   transposition table of the playing engine, so even replies that were not finished
+ *   make the real search faster.
+ * - Every turn gets a fresh stop flag. turnStarted() and stop() set the old flag, so the
+ *   running search ends within about a thousand nodes and publishes nothing more.
+ * - Replies are kept per position key, one for every candidate move of the human.
+ * - Progress is handed to the listener on the event thread. Updates are coalesced, so
+ *   a fast search never floods the EDT and never waits for it.
+ */
+public class PonderService {
+
+    /**
+     * Receives the search progress on the event thread.
+     */
+    public interface Listener {
+        void ponderProgress(Progress progress);
+    }
+
+    /**
+     * Result of the hint search so far.
+     */
+    public static final class Progress {
+        public final long positionKey;
+        public final int depth;
+        public final int bestMove;
+        public final int score;
+        public final int repliesReady;
+
+        Progress(long positionKey, int depth, int bestMove, int score, int repliesReady) {
+            this.positionKey = positionKey;
+            this.depth = depth;
+            this.bestMove = bestMove;
+            this.score = score;
+            this.repliesReady = repliesReady;
+        }
+    }
+
+    // Best known reply in a position after a candidate human move
+    private static final class Reply {
+        final int move;
+        final int depth;
+
+        Reply(int move, int depth) {
+            this.move = move;
+            this.depth = depth;
+        }
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ponder");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final SearchEngine engine;
+    private final ConcurrentHashMap<Long, Reply> replies = new ConcurrentHashMap<>();
+
+    // Stop flag of the turn being analysed
+    private AtomicBoolean currentStop = new AtomicBoolean(true);
+    private volatile Progress latest;
+    private final AtomicReference<Progress> pendingProgress = new AtomicReference<>();
+    private volatile Listener listener;
+
+    // Time for the hint search, and the first time slice per candidate move
+    private long hintMillis = 1000;
+    private long replyMillis = 50;
+    private int maxReplyDepth = 20;
+    // No round is started with a longer slice, so an idle player does not keep a core busy forever
+    private static final long MAX_SLICE_MILLIS = 5000;
+
+    /**
+     * Creates a ponder service.
+     *
+     * @param table The transposition table of the engine that plays the moves.
+     */
+    public PonderService(TranspositionTable table) {
+        this.engine = new SearchEngine(table);
+        this.engine.setTablebase(Tablebase.getDefault());
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets how long the hint is searched before the replies are analysed.
+     */
+    public void setHintMillis(long millis) {
+        this.hintMillis = millis;
+    }
+
+    /**
+     * Sets the time slice for each candidate move in the first round; every later
+     * round doubles it.
+     */
+    public void setReplyMillis(long millis) {
+        this.replyMillis = millis;
+    }
+
+    /**
+     * Starts analysing a position in which the human is to move. Any earlier analysis
+     * is cancelled.
+     *
+     * @param position The position; it is copied, so the caller may change it afterwards.
+     */
+    public synchronized void turnStarted(BitboardPosition position) {
+        stop();
+        replies.clear();
+        latest = null;
+        final AtomicBoolean stopFlag = new AtomicBoolean(false);
+        currentStop = stopFlag;
+        final BitboardPosition root = new BitboardPosition(position);
+        worker.execute(() -> ponder(root, stopFlag));
+    }
+
+    /**
+     * Cancels the running analysis. Results found so far stay available.
+     */
+    public synchronized void stop() {
+        currentStop.set(true);
+    }
+
+    /**
+     * Returns the best move found for the player to move in a position.
+     *
+     * @param positionKey The key of the position the hint is for.
+     * @return The move, or Move.NONE if the position has not been analysed.
+     */
+    public int getHint(long positionKey) {
+        Progress progress = latest;
+        return progress != null && progress.positionKey == positionKey ? progress.bestMove : Move.NONE;
+    }
+
+    /**
+     * Returns the analysed reply in a position reached by one of the candidate moves.
+     *
+     * @param positionKey The key of the position after the human's move.
+     * @param minDepth    The least search depth the reply must come from.
+     * @return The move, or Move.NONE if no reply that deep is known.
+     */
+    public int getReply(long positionKey, int minDepth) {
+        Reply reply = replies.get(positionKey);
+        return reply != null && reply.depth >= minDepth ? reply.move : Move.NONE;
+    }
+
+    /**
+     * Stops the worker thread for good.
+     */
+    public void shutdown() {
+        stop();
+        worker.shutdownNow();
+    }
+
+    // Runs on the worker thread
+    private void ponder(BitboardPosition root, AtomicBoolean stopFlag) {
+        if (stopFlag.get() || root.isGameOver()) {
+            return;
+        }
+        long rootKey = root.key();
+        engine.setSharedStop(stopFlag);
+        engine.setNodeLimit(0);
+
+        // The hint: best move for the human
+        engine.setTimeLimit(hintMillis);
+        engine.setMaxDepth(SearchEngine.MAX_PLY - 1);
+        engine.setProgressListener((depth, bestMove, score, nodes) ->
+                publish(stopFlag, new Progress(rootKey, depth, bestMove, score, 0)));
+        engine.search(root);
+        engine.setProgressListener(null);
+
+        // The replies: the engine's answer to every move the human can play, hint first
+        int[] candidates = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(root, candidates);
+        Progress hint = latest;
+        if (hint != null && hint.positionKey == rootKey) {
+            moveToFront(candidates, count, hint.bestMove);
+        }
+        BitboardPosition after = new BitboardPosition();
+        long slice = replyMillis;
+        for (; slice <= MAX_SLICE_MILLIS && !stopFlag.get(); slice *= 2) {
+            boolean deeper = false;
+            for (int i = 0; i < count && !stopFlag.get(); i++) {
+                after.copyFrom(root);
+                after.move(Move.from(candidates[i]), Move.to(candidates[i]));
+                Reply known = replies.get(after.key());
+                if (after.isGameOver() || (known != null && known.depth >= maxReplyDepth)) {
+                    continue;
+                }
+                engine.setTimeLimit(slice);
+                int move = engine.search(after);
+                if (stopFlag.get() && engine.getCompletedDepth() == 0) {
+                    break;
+                }
+                if (move != Move.NONE && (known == null || engine.getCompletedDepth() >= known.depth)) {
+                    replies.put(after.key(), new Reply(move, engine.getCompletedDepth()));
+                }
+                deeper = true;
+            }
+            if (!deeper) {
+                break;
+            }
+            if (hint != null && hint.positionKey == rootKey) {
+                publish(stopFlag, new Progress(rootKey, hint.depth, hint.bestMove, hint.score, replies.size()));
+            }
+        }
+    }
+
+    // Hands progress to the listener on the event thread, dropping updates it has not picked up yet
+    private void publish(AtomicBoolean stopFlag, Progress progress) {
+        if (stopFlag.get()) {
+            return;
+        }
+        latest = progress;
+        if (pendingProgress.getAndSet(progress) == null) {
+            SwingUtilities.invokeLater(() -> {
+                Progress newest = pendingProgress.getAndSet(null);
+                Listener current = listener;
+                if (newest != null && current != null) {
+                    current.ponderProgress(newest);
+                }
+            });
+        }
+    }
+
+    private static void moveToFront(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) {
+                moves[i] = moves[0];
+                moves[0] = move;
+                return;
+            }
+        }
+    }
+}
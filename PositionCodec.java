@@ -0,0 +1,135 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Purpose:
+ * Compact, versioned binary format for a single position. A full position with the
+ * turn, the Tor/Xor move counters and the Ram directions takes at most 27 bytes,
+ * 17 for the starting position.
+ *
+ * Layout (version 1):
+ * - byte 0: format version
+ * - byte 1: flags, bit 0 set when Blue is to move
+ * - bytes 2-6: occupied squares, 40 bits, least significant byte first
+ * - one 4-bit code per occupied square in square order, two codes per byte
+ *   (low nibble first): 0-9 = color * 5 + type, 10/11 = Pink Tor/Xor that moved once,
+ *   12/13 = Blue Tor/Xor that moved once, 14/15 = Pink/Blue Ram heading back.
+ */
+public final class PositionCodec {
+
+    public static final int VERSION = 1;
+    public static final int MAX_BYTES = 7 + BitboardPosition.SQUARES / 2;
+
+    private static final int MOVED_PINK_TOR = 10;
+    private static final int MOVED_BLUE_TOR = 12;
+    private static final int RETURNING_RAM = 14;
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes a position at the buffer's current position.
+     *
+     * @param position The position to write.
+     * @param out      The buffer; needs at least MAX_BYTES bytes left.
+     * @return The number of bytes written.
+     */
+    public static int encode(BitboardPosition position, ByteBuffer out) {
+        int start = out.position();
+        long occupied = position.occupied();
+        out.put((byte) VERSION);
+        out.put((byte) (position.isPinkToMove() ? 0 : 1));
+        for (int i = 0; i < 5; i++) {
+            out.put((byte) (occupied >>> (8 * i)));
+        }
+        int pending = -1;
+        for (long b = occupied; b != 0; b &= b - 1) {
+            int code = codeAt(position, Long.numberOfTrailingZeros(b));
+            if (pending < 0) {
+                pending = code;
+            } else {
+                out.put((byte) (pending | (code << 4)));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) pending);
+        }
+        return out.position() - start;
+    }
+
+    /**
+     * Encodes a position into a new byte array.
+     */
+    public static byte[] encode(BitboardPosition position) {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_BYTES);
+        encode(position, buffer);
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a position from the buffer's current position.
+     *
+     * @param in       The buffer to read from.
+     * @param position The position to overwrite.
+     * @throws IllegalArgumentException If the data has an unknown version.
+     */
+    public static void decode(ByteBuffer in, BitboardPosition position) {
+        int version = in.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported position format version: " + version);
+        }
+        boolean blueToMove = (in.get() & 1) != 0;
+        long occupied = 0;
+        for (int i = 0; i < 5; i++) {
+            occupied |= (long) (in.get() & 0xFF) << (8 * i);
+        }
+
+        position.clear();
+        int current = 0;
+        boolean highNibble = false;
+        for (long b = occupied; b != 0; b &= b - 1) {
+            int sq = Long.numberOfTrailingZeros(b);
+            int code;
+            if (highNibble) {
+                code = current >>> 4;
+            } else {
+                current = in.get() & 0xFF;
+                code = current & 0xF;
+            }
+            highNibble = !highNibble;
+            putCode(position, sq, code);
+        }
+        position.setPinkToMove(!blueToMove);
+    }
+
+    // Returns the 4-bit code for the piece on an occupied square
+    private static int codeAt(BitboardPosition position, int sq) {
+        int color = position.colorAt(sq);
+        int type = position.typeAt(sq);
+        long bit = 1L << sq;
+        if ((type == BitboardPosition.TOR || type == BitboardPosition.XOR) && (position.movedOnce() & bit) != 0) {
+            return (color == BitboardPosition.PINK ? MOVED_PINK_TOR : MOVED_BLUE_TOR) + type - BitboardPosition.TOR;
+        }
+        if (type == BitboardPosition.RAM && (position.ramsReturning() & bit) != 0) {
+            return RETURNING_RAM + color;
+        }
+        return color * BitboardPosition.TYPES + type;
+    }
+
+    private static void putCode(BitboardPosition position, int sq, int code) {
+        if (code < 2 * BitboardPosition.TYPES) {
+            position.put(sq, code / BitboardPosition.TYPES, code % BitboardPosition.TYPES);
+        } else if (code < RETURNING_RAM) {
+            int color = code < MOVED_BLUE_TOR ? BitboardPosition.PINK : BitboardPosition.BLUE;
+            int type = BitboardPosition.TOR + (code - MOVED_PINK_TOR) % 2;
+            position.put(sq, color, type);
+            position.setMovedOnce(sq);
+        } else {
+            position.put(sq, code - RETURNING_RAM, BitboardPosition.RAM);
+            position.setRamReturning(sq);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * Purpose:
+ * An immutable copy of a game position, published by ChessModel after every completed
+ * change. Threads other than the event thread (analysis, autosave, spectator views)
+ * read the game through these instead of the live board, so they never see a move
+ * half-applied.
+ *
+ * Design:
+ * - Holds the same masks as BitboardPosition (one per piece type and color, the
+ *   Tor/Xor move counters and the Ram directions) plus the turn, the Zobrist key and
+ *   the screen flip: about a hundred bytes, with no ChessPieces objects.
+ * - Every field is final and the mask array never leaves the object, so a snapshot
+ *   can be handed to any number of threads without locks or copying.
+ * - Squares are in Pink's board coordinates, like the bitboard's.
+ */
+public final class PositionSnapshot {
+    private final long[] pieces = new long[2 * BitboardPosition.TYPES]; // Indexed by color * TYPES + type
+    private final long movedOnce;     // Tor/Xor pieces that moved once since their last transformation
+    private final long ramsReturning; // Rams heading back towards their own side
+    private final boolean pinkToMove;
+    private final boolean flipped;    // True if the screen shows Blue at the bottom
+    private final long key;           // Zobrist key of the position
+    private final int ply;            // Moves played since the game (or the edited board) started
+    private final long sequence;      // Number of the publication; later snapshots have larger numbers
+
+    /**
+     * Copies a position.
+     *
+     * @param position The position to copy; later changes to it do not show here.
+     * @param flipped  Whether the screen shows Blue at the bottom.
+     * @param ply      The number of moves played so far.
+     * @param sequence The publication number.
+     */
+    public PositionSnapshot(BitboardPosition position, boolean flipped, int ply, long sequence) {
+        for (int color = BitboardPosition.PINK; color <= BitboardPosition.BLUE; color++) {
+            for (int type = 0; type < BitboardPosition.TYPES; type++) {
+                pieces[color * BitboardPosition.TYPES + type] = position.pieces(color, type);
+            }
+        }
+        this.movedOnce = position.movedOnce();
+        this.ramsReturning = position.ramsReturning();
+        this.pinkToMove = position.isPinkToMove();
+        this.flipped = flipped;
+        this.key = position.key();
+        this.ply = ply;
+        this.sequence = sequence;
+    }
+
+    /**
+     * Checks whether this snapshot already holds a position, so ChessModel can keep
+     * it instead of publishing an equal copy.
+     */
+    boolean matches(BitboardPosition position, boolean flipped, int ply) {
+        if (key != position.key() || this.flipped != flipped || this.ply != ply
+                || pinkToMove != position.isPinkToMove() || movedOnce != position.movedOnce()
+                || ramsReturning != position.ramsReturning()) {
+            return false;
+        }
+        for (int color = BitboardPosition.PINK; color <= BitboardPosition.BLUE; color++) {
+            for (int type = 0; type < BitboardPosition.TYPES; type++) {
+                if (pieces[color * BitboardPosition.TYPES + type] != position.pieces(color, type)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the type of the piece on a square.
+     *
+     * @param sq The square, in Pink's board coordinates.
+     * @return The piece type, or BitboardPosition.EMPTY.
+     */
+    public int typeAt(int sq) {
+        long b = 1L << sq;
+        for (int type = 0; type < BitboardPosition.TYPES; type++) {
+            if (((pieces[type] | pieces[BitboardPosition.TYPES + type]) & b) != 0) {
+                return type;
+            }
+        }
+        return BitboardPosition.EMPTY;
+    }
+
+    /**
+     * Returns the color of the piece on a square.
+     *
+     * @param sq The square, in Pink's board coordinates.
+     * @return BitboardPosition.PINK, BLUE or EMPTY.
+     */
+    public int colorAt(int sq) {
+        long b = 1L << sq;
+        if ((occupancy(BitboardPosition.PINK) & b) != 0) {
+            return BitboardPosition.PINK;
+        }
+        return (occupancy(BitboardPosition.BLUE) & b) != 0 ? BitboardPosition.BLUE : BitboardPosition.EMPTY;
+    }
+
+    public long pieces(int color, int type) {
+        return pieces[color * BitboardPosition.TYPES + type];
+    }
+
+    public long occupancy(int color) {
+        long result = 0;
+        for (int type = 0; type < BitboardPosition.TYPES; type++) {
+            result |= pieces[color * BitboardPosition.TYPES + type];
+        }
+        return result;
+    }
+
+    public long movedOnce() {
+        return movedOnce;
+    }
+
+    public long ramsReturning() {
+        return ramsReturning;
+    }
+
+    public boolean isPinkToMove() {
+        return pinkToMove;
+    }
+
+    public boolean isFlipped() {
+        return flipped;
+    }
+
+    public boolean isGameOver() {
+        return pieces(BitboardPosition.PINK, BitboardPosition.SAU) == 0
+                || pieces(BitboardPosition.BLUE, BitboardPosition.SAU) == 0;
+    }
+
+    public long key() {
+        return key;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets up a position from this snapshot, e.g. as the root of a search.
+     *
+     * @param position The position to overwrite; its undo history is cleared.
+     */
+    public void copyTo(BitboardPosition position) {
+        position.clear();
+        for (int color = BitboardPosition.PINK; color <= BitboardPosition.BLUE; color++) {
+            for (int type = 0; type < BitboardPosition.TYPES; type++) {
+                for (long b = pieces(color, type); b != 0; b &= b - 1) {
+                    position.put(Long.numberOfTrailingZeros(b), color, type);
+                }
+            }
+        }
+        for (long b = movedOnce; b != 0; b &= b - 1) {
+            position.setMovedOnce(Long.numberOfTrailingZeros(b));
+        }
+        for (long b = ramsReturning; b != 0; b &= b - 1) {
+            position.setRamReturning(Long.numberOfTrailingZeros(b));
+        }
+        position.setPinkToMove(pinkToMove);
+    }
+
+    /**
+     * Returns a new mutable position with the contents of this snapshot.
+     */
+    public BitboardPosition toPosition() {
+        BitboardPosition position = new BitboardPosition();
+        copyTo(position);
+        return position;
+    }
+}
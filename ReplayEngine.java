@@ -0,0 +1,130 @@
+/**
+ * Purpose:
+ * Shows any ply of a GameRecord on a ChessModel, e.g. for scrubbing through a saved game.
+ *
+ * Design:
+ * - The record is replayed once on a bitboard when the engine is created, keeping a
+ *   copy of the position every CHECKPOINT_INTERVAL plies. A seek loads the nearest
+ *   checkpoint at or before the target and plays the remaining moves through
+ *   ChessModel.makeMove, so at most CHECKPOINT_INTERVAL - 1 moves are applied.
+ * - Short steps from the shown ply are played with makeMove/unmakeMove in place
+ *   without reloading, so stepping one ply forward or back costs one move.
+ * - A seek is one model update (beginUpdate/endUpdate): however many moves it plays,
+ *   the board listeners are called once and one snapshot and event are published.
+ */
+public class ReplayEngine {
+
+    public static final int CHECKPOINT_INTERVAL = 16;
+
+    private final ChessModel model;
+    private final GameRecord record;
+
+    // Position after every CHECKPOINT_INTERVAL plies, checkpoint i is ply i * CHECKPOINT_INTERVAL
+    private final BitboardPosition[] checkpoints;
+
+    // Ply shown on the model, and the ply the model was last loaded at (it cannot
+    // unmake past this point)
+    private int ply;
+    private int loadedPly;
+
+    /**
+     * Creates a replay engine and shows the starting position of the record.
+     *
+     * @param model  The model to show the game on; its current game is replaced.
+     * @param record The game to replay. It must not change while it is replayed.
+     * @throws IllegalArgumentException If the record contains an illegal move.
+     */
+    public ReplayEngine(ChessModel model, GameRecord record) {
+        this.model = model;
+        this.record = record;
+        this.checkpoints = new BitboardPosition[record.size() / CHECKPOINT_INTERVAL + 1];
+
+        BitboardPosition position = new BitboardPosition();
+        record.getStart(position);
+        checkpoints[0] = new BitboardPosition(position);
+        for (int i = 0; i < record.size(); i++) {
+            int move = record.move(i);
+            if (!position.isLegalMove(Move.from(move), Move.to(move))) {
+                throw new IllegalArgumentException("Illegal move " + Move.toString(move) + " at ply " + i);
+            }
+            position.move(Move.from(move), Move.to(move));
+            if ((i + 1) % CHECKPOINT_INTERVAL == 0) {
+                checkpoints[(i + 1) / CHECKPOINT_INTERVAL] = new BitboardPosition(position);
+            }
+        }
+        load(0);
+    }
+
+    /**
+     * Shows the position after the given number of moves.
+     *
+     * @param target The ply to show; clamped to 0..length().
+     */
+    public void seek(int target) {
+        target = Math.max(0, Math.min(target, record.size()));
+        int checkpointPly = target - target % CHECKPOINT_INTERVAL;
+        model.beginUpdate();
+        try {
+            // Forward: walk from the shown ply unless the target's checkpoint lies past it,
+            // in which case loading the checkpoint leaves fewer moves to play
+            if (target >= ply && ply >= checkpointPly) {
+                forward(target);
+            } else if (target < ply && target >= loadedPly && ply - target <= target - checkpointPly) {
+                while (ply > target) {
+                    model.unmakeMove();
+                    ply--;
+                }
+            } else {
+                load(checkpointPly);
+                forward(target);
+            }
+        } finally {
+            model.endUpdate();
+        }
+    }
+
+    /**
+     * Shows the next ply, if there is one.
+     */
+    public void stepForward() {
+        seek(ply + 1);
+    }
+
+    /**
+     * Shows the previous ply, if there is one.
+     */
+    public void stepBack() {
+        seek(ply - 1);
+    }
+
+    /**
+     * Returns the ply currently shown.
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Returns the number of moves in the game.
+     */
+    public int length() {
+        return record.size();
+    }
+
+    public GameRecord getRecord() {
+        return record;
+    }
+
+    private void load(int checkpointPly) {
+        model.loadPosition(checkpoints[checkpointPly / CHECKPOINT_INTERVAL]);
+        ply = checkpointPly;
+        loadedPly = checkpointPly;
+    }
+
+    private void forward(int target) {
+        while (ply < target) {
+            model.makeMove(record.move(ply));
+            ply++;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Purpose:
+ * Loads images and audio in the background, so the first window can appear before
+ * they are decoded. Everything loaded is cached under its name for the rest of the run.
+ *
+ * Design:
+ * - A small pool of daemon threads decodes the resources queued by
+ *   preloadStartupResources() (menu art, piece sprites) and any other resource asked
+ *   for with load() or image(). Other pictures, such as the tutorial's, are only
+ *   decoded once a screen asks for them, so a run that never shows them never pays
+ *   for them.
+ * - Each resource is a Resource: a task that runs at most once. If the user reaches a
+ *   screen before its resource is done, get() runs the task on the spot if no loader
+ *   thread has started it, and otherwise waits for that thread. Nothing is decoded twice.
+ * - A resource that cannot be loaded (e.g. a missing file) gives null, after a message
+ *   on the error stream, like the screens did when they loaded files themselves.
+ * - Load times are reported to StartupTimer.
+ */
+public final class ResourceLoader {
+
+    public static final String MENU_IMAGE = "menuImage.png";
+    public static final int MENU_IMAGE_WIDTH = 500;
+    public static final int MENU_IMAGE_HEIGHT = 300;
+
+    private static final ResourceLoader INSTANCE = new ResourceLoader();
+
+    /**
+     * A resource that is loaded at most once, in the background or on first use.
+     */
+    public static final class Resource<T> {
+        private final String name;
+        private final Callable<T> loader;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Resource(String name, Callable<T> loader) {
+            this.name = name;
+            this.loader = loader;
+        }
+
+        /**
+         * Returns a resource that is already loaded.
+         */
+        public static <T> Resource<T> of(String name, T value) {
+            Resource<T> resource = new Resource<>(name, null);
+            resource.started.set(true);
+            resource.result.complete(value);
+            return resource;
+        }
+
+        /**
+         * Returns the resource, loading it on this thread if no loader thread has
+         * started yet.
+         *
+         * @return The resource, or null if it could not be loaded.
+         */
+        public T get() {
+            load();
+            return result.join();
+        }
+
+        public boolean isReady() {
+            return result.isDone();
+        }
+
+        /**
+         * Runs an action on the event thread once the resource is loaded (at once if it
+         * already is and this is the event thread). The value may be null.
+         */
+        public void whenReady(Consumer<? super T> action) {
+            if (result.isDone() && SwingUtilities.isEventDispatchThread()) {
+                action.accept(result.join());
+            } else {
+                result.thenAccept(value -> SwingUtilities.invokeLater(() -> action.accept(value)));
+            }
+        }
+
+        // Runs the loader unless another thread got here first
+        private void load() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            long start = System.nanoTime();
+            T value = null;
+            try {
+                value = loader.call();
+            } catch (Exception e) {
+                System.err.println("Error loading " + name + ": " + e.getMessage());
+            }
+            StartupTimer.loaded(name, System.nanoTime() - start);
+            result.complete(value);
+        }
+    }
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors())), runnable -> {
+                Thread thread = new Thread(runnable, "resource-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final ConcurrentHashMap<String, Resource<?>> resources = new ConcurrentHashMap<>();
+
+    private ResourceLoader() {
+    }
+
+    public static ResourceLoader getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Queues everything the menu and the game board need: the menu art and the piece
+     * sprites. Returns at once.
+     */
+    public void preloadStartupResources() {
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        pending.add(scaledIcon(MENU_IMAGE, MENU_IMAGE_WIDTH, MENU_IMAGE_HEIGHT).result);
+        pending.add(load("piece sprites", () -> {
+            SpriteCache.getInstance().preload();
+            return Boolean.TRUE;
+        }).result);
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> StartupTimer.mark("startup resources loaded"));
+    }
+
+    /**
+     * Returns a resource, queueing it for the loader threads the first time it is asked for.
+     *
+     * @param name   The name it is cached under.
+     * @param loader Loads the resource; called at most once.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Resource<T> load(String name, Callable<T> loader) {
+        Resource<?> known = resources.get(name);
+        if (known != null) {
+            return (Resource<T>) known;
+        }
+        Resource<T> resource = new Resource<>(name, loader);
+        Resource<?> raced = resources.putIfAbsent(name, resource);
+        if (raced != null) {
+            return (Resource<T>) raced;
+        }
+        executor.execute(resource::load);
+        return resource;
+    }
+
+    /**
+     * Returns a decoded image file.
+     *
+     * @param path The file, relative to the working directory.
+     */
+    public Resource<BufferedImage> image(String path) {
+        return load(path, () -> readImage(path));
+    }
+
+    /**
+     * Returns an image file scaled to the given size, as an icon.
+     *
+     * @param path The file, relative to the working directory.
+     */
+    public Resource<ImageIcon> scaledIcon(String path, int width, int height) {
+        return load(path + "@" + width + "x" + height, () -> {
+            BufferedImage original = image(path).get();
+            return original != null ? new ImageIcon(scale(original, width, height)) : null;
+        });
+    }
+
+    private static BufferedImage readImage(String path) throws IOException {
+        File file = new File(path);
+        if (!file.exists()) {
+            System.err.println("Image file not found: " + file.getAbsolutePath());
+            return null;
+        }
+        return ImageIO.read(file);
+    }
+
+    private static BufferedImage scale(BufferedImage original, int width, int height) {
+        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = result.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(original, 0, 0, width, height, null);
+        g.dispose();
+        return result;
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Purpose:
+ * Micro-benchmarks for the rules core, run the way JMH runs them: warm-up
+ * iterations first, then timed measurement iterations, with every result consumed
+ * so the JIT cannot drop the work.
+ *
+ * Benchmarks:
+ * - correctMove for every piece type on the start position
+ * - FlipScreenController.flipScreen
+ * - ChessModel.isGameOver
+ * - LoadModel.readGame on a saved game in the text format
+ * - the bitboard equivalents (isLegalMove and MoveGenerator.generate)
+ *
+ * Results are printed and written as JSON (one object per benchmark, with the
+ * mean as "score" and the sample standard deviation as "stdev", both in ns/op) so runs
+ * of different releases can be compared. Unlike JMH there is no "scoreError" field.
+ *
+ * Usage: java RulesBenchmark [output file] [warm-up iterations] [measurement iterations]
+ */
+public class RulesBenchmark {
+
+    // One benchmark: performs ops operations and returns a value derived from them
+    private interface Benchmark {
+        long run(int ops) throws Exception;
+    }
+
+    private static final long WARMUP_NANOS = 200_000_000L;
+    private static final long ITERATION_NANOS = 500_000_000L;
+
+    // Results end up here so the JIT cannot drop the benchmarked calls
+    private static volatile long sink;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<double[]> results = new ArrayList<>();
+    private final int warmupIterations;
+    private final int measurementIterations;
+
+    public RulesBenchmark(int warmupIterations, int measurementIterations) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String output = args.length > 0 ? args[0] : "benchmark-results.json";
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int measurement = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        RulesBenchmark runner = new RulesBenchmark(warmup, measurement);
+
+        // Start position with the object pieces
+        ChessModel model = new ChessModel();
+        model.startNewGame();
+        ChessPieces[][] board = model.getChessBoard();
+
+        // Each call checks the next of the 40 target squares, so results cannot be hoisted
+        runner.benchCorrectMove("correctMove.Ram", board[6][0], board);
+        runner.benchCorrectMove("correctMove.Biz", board[7][1], board);
+        runner.benchCorrectMove("correctMove.Tor", board[7][0], board);
+        runner.benchCorrectMove("correctMove.Xor", board[7][4], board);
+        runner.benchCorrectMove("correctMove.Sau", board[7][2], board);
+
+        BitboardPosition position = model.getPosition();
+        int from = BitboardPosition.square(7, 1);
+        runner.run("bitboard.isLegalMove", ops -> {
+            long hits = 0;
+            int to = 0;
+            for (int i = 0; i < ops; i++) {
+                hits += position.isLegalMove(from, to) ? 1 : 0;
+                to = to == 39 ? 0 : to + 1;
+            }
+            return hits;
+        });
+
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        runner.run("bitboard.generateMoves", ops -> {
+            long count = 0;
+            for (int i = 0; i < ops; i++) {
+                count += MoveGenerator.generate(position, moves);
+            }
+            return count;
+        });
+
+        FlipScreenController flipScreenController = new FlipScreenController(model);
+        runner.run("FlipScreenController.flipScreen", ops -> {
+            for (int i = 0; i < ops; i++) {
+                flipScreenController.flipScreen();
+            }
+            return model.isFlipped() ? 1 : 0;
+        });
+
+        runner.run("ChessModel.isGameOver", ops -> {
+            long over = 0;
+            for (int i = 0; i < ops; i++) {
+                over += model.isGameOver((i & 1) == 0 ? ChessPieces.Color.PINK : ChessPieces.Color.BLUE) ? 1 : 0;
+            }
+            return over;
+        });
+
+        File saved = writeSavedGame(model);
+        ChessModel loadTarget = new ChessModel();
+        // readGame is the parsing part of loadGame, without its message and view refresh
+        runner.run("LoadModel.readGame", ops -> {
+            for (int i = 0; i < ops; i++) {
+                LoadModel.readGame(loadTarget, saved.getPath());
+            }
+            return loadTarget.getPositionKey();
+        });
+        saved.delete();
+
+        runner.writeJson(output);
+        System.out.println("Results written to " + output);
+    }
+
+    private void benchCorrectMove(String name, ChessPieces piece, ChessPieces[][] board) throws Exception {
+        run(name, ops -> {
+            long valid = 0;
+            int target = 0;
+            for (int i = 0; i < ops; i++) {
+                valid += piece.correctMove(target / 5, target % 5, board) ? 1 : 0;
+                target = target == 39 ? 0 : target + 1;
+            }
+            return valid;
+        });
+    }
+
+    /**
+     * Runs one benchmark and stores its result.
+     */
+    public void run(String name, Benchmark benchmark) throws Exception {
+        // Find a batch size that takes about a millisecond
+        int ops = 1;
+        while (true) {
+            long start = System.nanoTime();
+            sink += benchmark.run(ops);
+            if (System.nanoTime() - start > 1_000_000L || ops > (1 << 28)) {
+                break;
+            }
+            ops *= 2;
+        }
+
+        for (int i = 0; i < warmupIterations; i++) {
+            measure(benchmark, ops, WARMUP_NANOS);
+        }
+        double[] samples = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            samples[i] = measure(benchmark, ops, ITERATION_NANOS);
+        }
+
+        double mean = 0;
+        for (double sample : samples) {
+            mean += sample;
+        }
+        mean /= samples.length;
+        double variance = 0;
+        for (double sample : samples) {
+            variance += (sample - mean) * (sample - mean);
+        }
+        double deviation = samples.length > 1 ? Math.sqrt(variance / (samples.length - 1)) : 0;
+
+        names.add(name);
+        results.add(new double[]{mean, deviation});
+        System.out.printf(Locale.ROOT, "%-36s %12.2f ns/op  +- %.2f%n", name, mean, deviation);
+    }
+
+    // Runs batches for at least the given time and returns the average ns/op
+    private static double measure(Benchmark benchmark, int ops, long nanos) throws Exception {
+        long totalOps = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            sink += benchmark.run(ops);
+            totalOps += ops;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        return (double) elapsed / totalOps;
+    }
+
+    private void writeJson(String filename) throws IOException {
+        try (PrintWriter out = new PrintWriter(filename, "UTF-8")) {
+            out.println("[");
+            for (int i = 0; i < names.size(); i++) {
+                double[] result = results.get(i);
+                out.printf(Locale.ROOT,
+                        "  {\"benchmark\": \"%s\", \"mode\": \"avgt\", \"unit\": \"ns/op\", "
+                                + "\"warmupIterations\": %d, \"measurementIterations\": %d, "
+                                + "\"score\": %.3f, \"stdev\": %.3f}%s%n",
+                        names.get(i), warmupIterations, measurementIterations,
+                        result[0], result[1], i < names.size() - 1 ? "," : "");
+            }
+            out.println("]");
+        }
+    }
+
+    // Writes the start position in the text format read by LoadModel
+    private static File writeSavedGame(ChessModel model) throws IOException {
+        File file = File.createTempFile("kwazam-bench", ".txt");
+        try (PrintWriter out = new PrintWriter(file, "UTF-8")) {
+            out.println(model.isPinkTurn() ? "Pink Turn" : "Blue Turn");
+            ChessPieces[][] board = model.getChessBoard();
+            for (int i = 0; i < 8; i++) {
+                for (int j = 0; j < 5; j++) {
+                    ChessPieces piece = board[i][j];
+                    if (piece != null) {
+                        out.println(piece.getName() + "," + i + "," + j + "," + piece.getColor());
+                    }
+                }
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,54 @@
+import java.io.*;
+
+/**
+ * Purpose:
+ * Writes a position in the text save format read by LoadModel: a "Pink Turn" or
+ * "Blue Turn" line followed by one "name,x,y,COLOR" line per piece. Coordinates are
+ * screen coordinates with the player to move at the bottom, as LoadModel expects.
+ *
+ * The text format does not keep the Tor/Xor move counters or Ram directions; use
+ * PositionCodec and GameArchive when those must survive.
+ */
+public class SaveModel {
+
+    /**
+     * Saves the current game of a model. The position is taken from the model's latest
+     * snapshot, so this may run on any thread, e.g. for an autosave.
+     *
+     * @param model    The model holding the game.
+     * @param filename The file to write.
+     * @return True if the file was written.
+     */
+    public static boolean saveGame(ChessModel model, String filename) {
+        try (Writer writer = new BufferedWriter(new FileWriter(filename))) {
+            writeText(model.getSnapshot().toPosition(), writer);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error saving the game: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes a position in the text format.
+     *
+     * @param position The position to write.
+     * @param out      Where to write it.
+     */
+    public static void writeText(BitboardPosition position, Writer out) throws IOException {
+        boolean pinkToMove = position.isPinkToMove();
+        out.write(pinkToMove ? "Pink Turn" : "Blue Turn");
+        out.write('\n');
+        for (int sq = 0; sq < BitboardPosition.SQUARES; sq++) {
+            int type = position.typeAt(sq);
+            if (type == BitboardPosition.EMPTY) {
+                continue;
+            }
+            // Blue to move means the board is shown from Blue's side
+            int screen = pinkToMove ? sq : BitboardPosition.mirror(sq);
+            out.write(BitboardPosition.nameOf(type) + "," + screen / BitboardPosition.COLS + ","
+                    + screen % BitboardPosition.COLS + "," + BitboardPosition.toColor(position.colorAt(sq)));
+            out.write('\n');
+        }
+    }
+}
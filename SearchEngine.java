@@ -0,0 +1,429 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Purpose:
+ * Computer opponent for Kwazam Chess. Finds a move for the side to move with a
+ * negamax alpha-beta search and iterative deepening.
+ *
+ * Design:
+ * - Searches its own copy of a BitboardPosition with makeMove/unmakeMove, so the
+ *   rules (Tor/Xor transformation on every second move of a piece, Ram turning
+ *   around, the per-turn flip) are exactly the ones ChessModel plays by.
+ * - A search can be limited by time, by nodes and by depth. The best move of the
+ *   last finished iteration is returned when a limit is hit.
+ * - Results are kept in a TranspositionTable between iterations and between moves.
+ *   Several engines may share one table (see ParallelSearch).
+ * - With a Tablebase set, positions with few enough pieces are scored from the
+ *   tables instead of being searched.
+ * - All buffers are allocated once per engine, so searching does not allocate.
+ * - An engine instance is not thread safe; use one engine per thread.
+ */
+public class SearchEngine {
+
+    // Score of a captured Sau; wins found closer to the root score higher
+    public static final int MATE = 30000;
+    // Scores above this value are wins (or losses) at a known distance
+    public static final int MATE_BOUND = MATE - 1000;
+    public static final int INFINITY = 32000;
+    public static final int MAX_PLY = 100;
+
+    private final BitboardPosition position = new BitboardPosition();
+    private final TranspositionTable table;
+    // Endgame tables, or null
+    private Tablebase tablebase;
+    // Told about every finished iteration, or null
+    private ProgressListener progressListener;
+
+    /**
+     * Receives the result of every finished iteration of a search. It is called on the
+     * searching thread, so it must return quickly.
+     */
+    public interface ProgressListener {
+        void iterationFinished(int depth, int bestMove, int score, long nodes);
+    }
+
+    // Move buffers and ordering scores for every ply
+    private final int[][] moveBuffers = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY + 1][MoveGenerator.MAX_MOVES];
+    // Two quiet moves per ply that caused a cut-off
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    // Keys of the positions on the current search path, for repetition checks
+    private final long[] pathKeys = new long[MAX_PLY + 1];
+
+    // Search limits
+    private long timeLimitMillis = 100;
+    private long nodeLimit = Long.MAX_VALUE;
+    private int maxDepth = MAX_PLY - 1;
+    private int startDepth = 1;
+
+    // State of the running search
+    private volatile boolean stopRequested;
+    // Stop flag owned by a ParallelSearch; never reset by the engine itself
+    private AtomicBoolean sharedStop;
+    private boolean stopped;
+    private long deadline;
+    private long nodes;
+    private int rootBestMove;
+
+    // Result of the last search
+    private int bestMove = Move.NONE;
+    private int bestScore;
+    private int completedDepth;
+
+    /**
+     * Creates an engine with a 16 MB transposition table.
+     */
+    public SearchEngine() {
+        this(new TranspositionTable(16));
+    }
+
+    /**
+     * Creates an engine using the given transposition table.
+     *
+     * @param table The table to store search results in.
+     */
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Sets the time budget per move. Zero or less means no time limit.
+     */
+    public void setTimeLimit(long millis) {
+        this.timeLimitMillis = millis;
+    }
+
+    /**
+     * Sets the node budget per move. Zero or less means no node limit.
+     */
+    public void setNodeLimit(long nodes) {
+        this.nodeLimit = nodes > 0 ? nodes : Long.MAX_VALUE;
+    }
+
+    /**
+     * Sets the deepest iteration to search.
+     */
+    public void setMaxDepth(int depth) {
+        this.maxDepth = Math.max(1, Math.min(depth, MAX_PLY - 1));
+    }
+
+    /**
+     * Sets the first iteration to search. Helper threads in a parallel search start
+     * at different depths so they do not all search the same tree.
+     */
+    public void setStartDepth(int depth) {
+        this.startDepth = Math.max(1, depth);
+    }
+
+    /**
+     * Makes the engine also stop when the given flag is set. Unlike stop(), the flag
+     * is not cleared when a new search starts, so it can be set before the search runs.
+     */
+    public void setSharedStop(AtomicBoolean sharedStop) {
+        this.sharedStop = sharedStop;
+    }
+
+    /**
+     * Lets the search score endgames from a tablebase.
+     *
+     * @param tablebase The tables to probe, or null to search every position.
+     */
+    public void setTablebase(Tablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Sets the listener told about every finished iteration.
+     *
+     * @param listener The listener, or null.
+     */
+    public void setProgressListener(ProgressListener listener) {
+        this.progressListener = listener;
+    }
+
+    /**
+     * Asks a running search to stop as soon as possible. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Searches a position and returns the best move found within the limits.
+     *
+     * @param root The position to search; it is not modified.
+     * @return The best move, or Move.NONE if the side to move has no moves.
+     */
+    public int search(BitboardPosition root) {
+        position.copyFrom(root);
+        stopRequested = false;
+        stopped = false;
+        nodes = 0;
+        deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+        bestMove = Move.NONE;
+        bestScore = 0;
+        completedDepth = 0;
+        for (int[] pair : killers) {
+            pair[0] = Move.NONE;
+            pair[1] = Move.NONE;
+        }
+
+        for (int depth = Math.min(startDepth, maxDepth); depth <= maxDepth; depth++) {
+            rootBestMove = Move.NONE;
+            int score = negamax(depth, -INFINITY, INFINITY, 0);
+            if (stopped && completedDepth > 0) {
+                break;
+            }
+            if (stopped) {
+                // Stopped from outside during the first iteration: keep whatever it found
+                bestMove = rootBestMove;
+                break;
+            }
+            bestMove = rootBestMove;
+            bestScore = score;
+            completedDepth = depth;
+            if (progressListener != null) {
+                progressListener.iterationFinished(depth, bestMove, bestScore, nodes);
+            }
+            // Stop early once a forced win or loss has been found
+            if (stopped || Math.abs(score) >= MATE_BOUND) {
+                break;
+            }
+        }
+        if (bestMove == Move.NONE) {
+            // Only happens if the very first iteration was cut short
+            int count = MoveGenerator.generate(position, moveBuffers[0]);
+            bestMove = count > 0 ? moveBuffers[0][0] : Move.NONE;
+        }
+        return bestMove;
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply) {
+        if (position.isGameOver()) {
+            // The previous move captured our Sau
+            return -MATE + ply;
+        }
+        pathKeys[ply] = position.key();
+        if (ply > 0 && isRepetition(ply)) {
+            return 0;
+        }
+        if (ply > 0 && tablebase != null && Long.bitCount(position.occupied()) <= tablebase.getMaxPieces()) {
+            int result = tablebase.probe(position);
+            if (result != Tablebase.UNKNOWN) {
+                // A win in d plies captures the Sau at ply + d, scored like a capture found by search
+                return result == Tablebase.DRAW ? 0
+                        : Tablebase.isWin(result) ? MATE - ply - result : -MATE + ply + result;
+            }
+        }
+        if (depth <= 0 || ply >= MAX_PLY) {
+            return quiesce(alpha, beta, ply);
+        }
+        if (checkLimits()) {
+            return 0;
+        }
+        nodes++;
+
+        int originalAlpha = alpha;
+        int ttMove = Move.NONE;
+        long data = table.probe(position.key());
+        if (data != 0) {
+            ttMove = TranspositionTable.move(data);
+            if (ply > 0 && TranspositionTable.depth(data) >= depth) {
+                int score = fromTable(TranspositionTable.score(data), ply);
+                int bound = TranspositionTable.bound(data);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && score >= beta)
+                        || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                    return score;
+                }
+            }
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = MoveGenerator.generate(position, moves);
+        if (count == 0) {
+            // No piece can move: treated as a draw
+            return 0;
+        }
+        scoreMoves(moves, orderScores[ply], count, ttMove, ply);
+
+        int best = -INFINITY;
+        int bestMoveHere = Move.NONE;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, orderScores[ply], i, count);
+            boolean quiet = position.colorAt(Move.to(move)) == BitboardPosition.EMPTY;
+            position.makeMove(move);
+            int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestMoveHere = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        if (quiet && killers[ply][0] != move) {
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = move;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(position.key(), bestMoveHere, depth, bound, toTable(best, ply));
+        return best;
+    }
+
+    // Searches captures only, so the static evaluation is never taken in the middle of an exchange
+    private int quiesce(int alpha, int beta, int ply) {
+        if (checkLimits()) {
+            return 0;
+        }
+        nodes++;
+        int standPat = Evaluation.evaluate(position);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        int[] moves = moveBuffers[ply];
+        int count = MoveGenerator.generateCaptures(position, moves);
+        scoreMoves(moves, orderScores[ply], count, Move.NONE, ply);
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, orderScores[ply], i, count);
+            position.makeMove(move);
+            int score = position.isGameOver() ? MATE - ply - 1 : -quiesce(-beta, -alpha, ply + 1);
+            position.unmakeMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score > alpha) {
+                alpha = score;
+                if (alpha >= beta) {
+                    break;
+                }
+            }
+        }
+        return alpha;
+    }
+
+    // Move ordering: table move, then captures (most valuable victim first), then killers
+    private void scoreMoves(int[] moves, int[] scores, int count, int ttMove, int ply) {
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int victim = position.typeAt(Move.to(move));
+            if (move == ttMove) {
+                scores[i] = 1_000_000;
+            } else if (victim == BitboardPosition.SAU) {
+                scores[i] = 900_000;
+            } else if (victim != BitboardPosition.EMPTY) {
+                scores[i] = 100_000 + Evaluation.pieceValue(victim) * 16
+                        - Evaluation.pieceValue(position.typeAt(Move.from(move)));
+            } else if (move == killers[ply][0]) {
+                scores[i] = 50_000;
+            } else if (move == killers[ply][1]) {
+                scores[i] = 40_000;
+            } else {
+                scores[i] = 0;
+            }
+        }
+    }
+
+    // Selection sort step: moves the best remaining move to index i
+    private static int pickNext(int[] moves, int[] scores, int i, int count) {
+        int bestIndex = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[bestIndex]) {
+                bestIndex = j;
+            }
+        }
+        int move = moves[bestIndex];
+        moves[bestIndex] = moves[i];
+        moves[i] = move;
+        int score = scores[bestIndex];
+        scores[bestIndex] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    // A position seen earlier on the path with the same side to move counts as a draw
+    private boolean isRepetition(int ply) {
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (pathKeys[i] == pathKeys[ply]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean checkLimits() {
+        if (stopped) {
+            return true;
+        }
+        if (stopRequested || ((nodes & 1023) == 0 && sharedStop != null && sharedStop.get())) {
+            stopped = true;
+            return true;
+        }
+        // The first iteration always finishes so there is a move to play
+        if (completedDepth == 0) {
+            return false;
+        }
+        if (nodes >= nodeLimit
+                || ((nodes & 1023) == 0 && System.nanoTime() >= deadline)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    // Win scores are stored relative to the stored position, not to the root
+    private static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+}
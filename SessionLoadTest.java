@@ -0,0 +1,76 @@
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Purpose:
+ * Load driver for SessionManager. Opens many sessions and lets one simulated client
+ * per session (a virtual thread) play random legal moves as fast as the sessions
+ * answer. Finished games are restarted. Prints the move throughput and the latency
+ * of a move request, from submitting it to getting its result back.
+ *
+ * Usage: java SessionLoadTest [sessions] [moves per session]
+ */
+public class SessionLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int movesPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        SessionManager manager = new SessionManager();
+        long[] ids = new long[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            ids[i] = manager.openSession();
+        }
+
+        // Latencies in nanoseconds, one row per client so clients never share an array
+        long[][] latencies = new long[sessionCount][movesPerSession];
+        Thread[] clients = new Thread[sessionCount];
+        long start = System.nanoTime();
+        for (int i = 0; i < sessionCount; i++) {
+            final long id = ids[i];
+            final long[] times = latencies[i];
+            clients[i] = Thread.ofVirtual().start(() -> playGames(manager, id, times));
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        manager.shutdown();
+
+        long[] all = new long[sessionCount * movesPerSession];
+        for (int i = 0; i < sessionCount; i++) {
+            System.arraycopy(latencies[i], 0, all, i * movesPerSession, movesPerSession);
+        }
+        Arrays.sort(all);
+        System.out.printf("sessions %d, moves %,d in %.2f s%n", sessionCount, all.length, seconds);
+        System.out.printf("moves/s  %,.0f%n", all.length / seconds);
+        System.out.printf("latency  p50 %.1f us, p99 %.1f us, max %.1f us%n",
+                percentile(all, 0.50) / 1e3, percentile(all, 0.99) / 1e3, all[all.length - 1] / 1e3);
+    }
+
+    // One client: asks for the legal moves, plays one of them, and starts over when the game ends
+    private static void playGames(SessionManager manager, long id, long[] times) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int played = 0; played < times.length; ) {
+            int[] moves = manager.submit(id, GameSession::legalMoves).join();
+            if (moves.length == 0) {
+                manager.submit(id, session -> {
+                    session.newGame();
+                    return null;
+                }).join();
+                continue;
+            }
+            int move = moves[random.nextInt(moves.length)];
+            long begin = System.nanoTime();
+            MoveResult result = manager.submitMove(id, Move.from(move), Move.to(move)).join();
+            times[played++] = System.nanoTime() - begin;
+            if (!result.isMove()) {
+                throw new IllegalStateException("Legal move refused in session " + id + ": " + result);
+            }
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
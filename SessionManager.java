@@ -0,0 +1,154 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Purpose:
+ * Hosts many headless games at once, e.g. for a game server.
+ *
+ * Design:
+ * - Every GameSession runs on its own virtual thread, which takes commands from the
+ *   session's queue one at a time. A session is therefore only ever touched by its
+ *   own thread and needs no locks, while thousands of sessions share a few carrier
+ *   threads.
+ * - Callers get a CompletableFuture for every command and may wait for it (cheap on a
+ *   virtual thread) or chain on it.
+ * - A failing command completes its future exceptionally; the session keeps running.
+ */
+public class SessionManager {
+
+    private final ConcurrentHashMap<Long, Host> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private volatile boolean shutdown = false;
+
+    /**
+     * Opens a session with a new game and starts its thread.
+     * @return The id of the new session.
+     */
+    public long openSession() {
+        if (shutdown) {
+            throw new IllegalStateException("Session manager is shut down");
+        }
+        long id = nextId.getAndIncrement();
+        Host host = new Host(new GameSession(id));
+        sessions.put(id, host);
+        host.thread = Thread.ofVirtual().name("session-" + id).start(host::run);
+        return id;
+    }
+
+    /**
+     * Runs a task on a session's thread.
+     * @param id The session id.
+     * @param task The work to do with the session.
+     * @return The task's result, once it has run.
+     */
+    public <T> CompletableFuture<T> submit(long id, Function<GameSession, T> task) {
+        Host host = sessions.get(id);
+        if (host == null) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("No session " + id));
+        }
+        Command<T> command = new Command<>(task);
+        host.queue.add(command);
+        if (host.closed) {
+            // The session closed while the command was being queued
+            host.refuseQueued();
+        }
+        return command.result;
+    }
+
+    /**
+     * Plays a move in a session.
+     * @param id The session id.
+     * @param from The square of the piece to move.
+     * @param to The destination square.
+     * @return The outcome of the move.
+     */
+    public CompletableFuture<MoveResult> submitMove(long id, int from, int to) {
+        return submit(id, session -> session.play(from, to));
+    }
+
+    /**
+     * Closes a session. Commands already queued still run.
+     */
+    public void closeSession(long id) {
+        Host host = sessions.remove(id);
+        if (host != null) {
+            host.queue.add(Host.CLOSE);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Closes every session and waits for their threads to finish.
+     */
+    public void shutdown() throws InterruptedException {
+        shutdown = true;
+        for (Long id : sessions.keySet()) {
+            Host host = sessions.get(id);
+            closeSession(id);
+            if (host != null) {
+                host.thread.join();
+            }
+        }
+    }
+
+    // A task and the future its result goes to
+    private static final class Command<T> {
+        final Function<GameSession, T> task;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Command(Function<GameSession, T> task) {
+            this.task = task;
+        }
+
+        void run(GameSession session) {
+            try {
+                result.complete(task.apply(session));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    // A session, its command queue and the thread that owns it
+    private static final class Host {
+        static final Command<Void> CLOSE = new Command<>(session -> null);
+
+        final GameSession session;
+        final LinkedBlockingQueue<Command<?>> queue = new LinkedBlockingQueue<>();
+        Thread thread;
+        volatile boolean closed = false;
+
+        Host(GameSession session) {
+            this.session = session;
+        }
+
+        void run() {
+            try {
+                while (true) {
+                    Command<?> command = queue.take();
+                    if (command == CLOSE) {
+                        break;
+                    }
+                    command.run(session);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closed = true;
+            refuseQueued();
+        }
+
+        // Anything still queued after a close is refused
+        void refuseQueued() {
+            for (Command<?> command; (command = queue.poll()) != null; ) {
+                command.result.completeExceptionally(new IllegalStateException("Session " + session.getId() + " closed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.Random;
+
+/**
+ * Purpose:
+ * Measures how ParallelSearch scales with the number of threads. For every thread
+ * count it searches the same set of positions to a fixed depth and prints the time
+ * to reach that depth and the total nodes per second.
+ *
+ * Usage: java SmpBenchmark [max threads] [depth] [table MB]
+ */
+public class SmpBenchmark {
+
+    public static void main(String[] args) {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int tableMegabytes = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        BitboardPosition[] positions = testPositions(4);
+
+        System.out.println("threads  time-to-depth(ms)  nodes  nodes/s  speed-up");
+        double singleThreadTime = 0;
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            ParallelSearch search = new ParallelSearch(threads - 1, tableMegabytes);
+            search.setTimeLimit(0);
+            search.setMaxDepth(depth);
+
+            long nodes = 0;
+            long start = System.nanoTime();
+            for (BitboardPosition position : positions) {
+                search.getTable().clear();
+                search.search(position);
+                nodes += search.getNodes();
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            search.shutdown();
+
+            if (threads == 1) {
+                singleThreadTime = millis;
+            }
+            System.out.printf("%7d  %17.1f  %,d  %,d  %.2fx%n",
+                    threads, millis / positions.length, nodes,
+                    (long) (nodes / (millis / 1000.0)), singleThreadTime / millis);
+        }
+    }
+
+    // 1, 2, 4, 8, ... and finally the maximum itself
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2;
+    }
+
+    // The start position and a few positions reached by fixed random openings
+    private static BitboardPosition[] testPositions(int count) {
+        BitboardPosition[] positions = new BitboardPosition[count];
+        Random random = new Random(42);
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        for (int i = 0; i < count; i++) {
+            BitboardPosition position = new BitboardPosition();
+            position.setStartPosition();
+            for (int ply = 0; ply < i * 6; ply++) {
+                int n = MoveGenerator.generate(position, moves);
+                if (n == 0) {
+                    break;
+                }
+                int move = moves[random.nextInt(n)];
+                position.move(Move.from(move), Move.to(move));
+            }
+            positions[i] = position;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,107 @@
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URL;
+
+/**
+ * Purpose:
+ * Keeps the piece images ready to draw. The ten files in images/ are decoded once,
+ * and scaled copies are kept per piece type and color, so updating the board never
+ * decodes or scales an image again.
+ *
+ * Design:
+ * - Scaled copies are compatible images of the screen, so Swing can keep them in
+ *   video memory where the platform allows it.
+ * - Scaled copies are only rebuilt when a different tile size is asked for.
+ * - Shared by all views through getInstance(); all methods are thread safe so the
+ *   images can be decoded on a background thread.
+ */
+public class SpriteCache {
+
+    private static final SpriteCache INSTANCE = new SpriteCache();
+
+    // Image file names in BitboardPosition type order
+    private static final String[] NAMES = {"Ram", "Biz", "Tor", "Xor", "Sau"};
+
+    // Indexed by color * TYPES + type
+    private final BufferedImage[] originals = new BufferedImage[2 * BitboardPosition.TYPES];
+    private final BufferedImage[] scaled = new BufferedImage[2 * BitboardPosition.TYPES];
+    private int scaledSize = -1;
+
+    private SpriteCache() {
+    }
+
+    public static SpriteCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the image of a piece scaled to a square of the given size.
+     *
+     * @param type  The piece type (BitboardPosition.RAM ... SAU).
+     * @param color BitboardPosition.PINK or BLUE.
+     * @param size  The width and height in pixels.
+     * @return The image, or null if the image file is missing.
+     */
+    public synchronized Image getImage(int type, int color, int size) {
+        if (size != scaledSize) {
+            // Tile size changed: drop every scaled copy and rebuild them on demand
+            java.util.Arrays.fill(scaled, null);
+            scaledSize = size;
+        }
+        int index = color * BitboardPosition.TYPES + type;
+        if (scaled[index] == null) {
+            BufferedImage original = getOriginal(index);
+            if (original != null) {
+                scaled[index] = scale(original, size);
+            }
+        }
+        return scaled[index];
+    }
+
+    /**
+     * Decodes all piece images now, so the first board update does not have to.
+     */
+    public synchronized void preload() {
+        for (int i = 0; i < originals.length; i++) {
+            getOriginal(i);
+        }
+    }
+
+    private BufferedImage getOriginal(int index) {
+        if (originals[index] == null) {
+            int type = index % BitboardPosition.TYPES;
+            String path = "images/" + NAMES[type]
+                    + (index < BitboardPosition.TYPES ? ".p.png" : ".b.png");
+            URL url = SpriteCache.class.getResource(path);
+            try {
+                if (url != null) {
+                    originals[index] = ImageIO.read(url);
+                } else {
+                    System.err.println("Image file not found: " + path);
+                }
+            } catch (IOException e) {
+                System.err.println("Error loading image " + path + ": " + e.getMessage());
+            }
+        }
+        return originals[index];
+    }
+
+    // Draws the image into a screen-compatible translucent image of the requested size
+    private static BufferedImage scale(BufferedImage original, int size) {
+        BufferedImage result;
+        if (GraphicsEnvironment.isHeadless()) {
+            result = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        } else {
+            result = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration().createCompatibleImage(size, size, Transparency.TRANSLUCENT);
+        }
+        Graphics2D g = result.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(original, 0, 0, size, size, null);
+        g.dispose();
+        return result;
+    }
+}
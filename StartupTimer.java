@@ -0,0 +1,82 @@
+import java.awt.Window;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.time.Instant;
+
+/**
+ * Purpose:
+ * Measures how long the application takes to start, above all the time until the
+ * first window is on screen (time to first frame).
+ *
+ * Design:
+ * - Times are counted from the start of the process, so JVM start-up and class loading
+ *   are included; if the operating system does not report it, from when this class
+ *   is first used.
+ * - Only the first frame is recorded; later windows do not change it.
+ * - With -Dkwazam.startupTiming=true every mark and every resource load is printed;
+ *   the time to first frame is always available from getTimeToFirstFrame().
+ */
+public final class StartupTimer {
+
+    private static final boolean PRINT = Boolean.getBoolean("kwazam.startupTiming");
+    private static final long START_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli).orElse(System.currentTimeMillis());
+
+    private static volatile long firstFrameMillis = -1;
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Returns the milliseconds since the process started.
+     */
+    public static long elapsedMillis() {
+        return System.currentTimeMillis() - START_MILLIS;
+    }
+
+    /**
+     * Records that a point of the start-up was reached.
+     */
+    public static void mark(String event) {
+        if (PRINT) {
+            System.out.printf("[startup] %6d ms  %s%n", elapsedMillis(), event);
+        }
+    }
+
+    // Called by ResourceLoader for every resource it has loaded
+    static void loaded(String name, long nanos) {
+        if (PRINT) {
+            System.out.printf("[startup] %6d ms  loaded %s in %.1f ms on %s%n", elapsedMillis(), name,
+                    nanos / 1e6, Thread.currentThread().getName());
+        }
+    }
+
+    /**
+     * Records the time to first frame when the window is first shown. Only the first
+     * window watched this way counts.
+     */
+    public static void watchFirstFrame(Window window) {
+        if (firstFrameMillis >= 0) {
+            return;
+        }
+        window.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                window.removeWindowListener(this);
+                if (firstFrameMillis < 0) {
+                    firstFrameMillis = elapsedMillis();
+                    mark("first frame");
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the milliseconds from the process start until the first frame was shown.
+     *
+     * @return The time, or -1 if no frame has been shown yet.
+     */
+    public static long getTimeToFirstFrame() {
+        return firstFrameMillis;
+    }
+}
@@ -0,0 +1,209 @@
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Purpose:
+ * Plays the background music in a loop, streamed from the file, so the heap holds a
+ * small buffer instead of the whole decoded track.
+ *
+ * Design:
+ * - One daemon thread at the lowest priority reads the file a tenth of a second at a
+ *   time into one reusable buffer and writes it to a SourceDataLine. Writing blocks
+ *   while the line is full, which paces the thread to the playback speed.
+ * - At the end of the file the thread opens the file again and keeps writing to the
+ *   same line without draining it, so the loop has no gap.
+ * - Stopping pauses the line and the thread; the open stream and the unwritten part of
+ *   the buffer are kept, so playing again resumes where it stopped without reloading.
+ * - Compressed files are decoded to PCM on the fly by the audio system.
+ * - music() and isPlaying() toggle and report playback like the menu's music button expects.
+ */
+public class StreamingMusicPlayer {
+
+    // Milliseconds of audio per read; also the size of the line's buffer in reads
+    private static final int CHUNK_MILLIS = 100;
+    private static final int LINE_CHUNKS = 4;
+
+    private final File file;
+    private Thread thread;                     // Started by the first play()
+    private SourceDataLine line;               // Opened by the thread for the file's format
+    private volatile boolean playing = false;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a player for a file. Nothing is read until play() is called.
+     *
+     * @param filename The audio file, e.g. a WAV file.
+     */
+    public StreamingMusicPlayer(String filename) {
+        this.file = new File(filename);
+    }
+
+    /**
+     * Starts or resumes playback.
+     */
+    public synchronized void play() {
+        if (closed || playing) {
+            return;
+        }
+        playing = true;
+        if (line != null) {
+            line.start();
+        }
+        if (thread == null) {
+            thread = new Thread(this::stream, "music");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Pauses playback. play() resumes from the same point.
+     */
+    public synchronized void stop() {
+        playing = false;
+        if (line != null) {
+            // Also makes a blocked write() return
+            line.stop();
+        }
+    }
+
+    /**
+     * Toggles the music on or off.
+     */
+    public void music() {
+        if (playing) {
+            stop();
+        } else {
+            play();
+        }
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Stops playback for good and releases the audio line.
+     */
+    public synchronized void close() {
+        closed = true;
+        playing = false;
+        if (line != null) {
+            // Makes a blocked write() return; the music thread then ends
+            line.close();
+        }
+        notifyAll();
+    }
+
+    // Runs on the music thread
+    private void stream() {
+        AudioInputStream stream = null;
+        byte[] buffer = null;
+        int offset = 0;
+        int length = 0;
+        boolean justOpened = false; // No data read from the stream since it was opened
+        try {
+            while (waitUntilPlaying()) {
+                if (offset == length) {
+                    // Buffer written out: read the next chunk, starting the file over at its end
+                    if (stream == null) {
+                        stream = open();
+                        justOpened = true;
+                        if (buffer == null) {
+                            buffer = openLine(stream.getFormat());
+                        }
+                    }
+                    length = stream.read(buffer, 0, buffer.length);
+                    offset = 0;
+                    if (length <= 0) {
+                        if (justOpened) {
+                            // Opening it again would give nothing either, in an endless loop
+                            throw new IOException("the file has no audio data");
+                        }
+                        stream.close();
+                        stream = null;
+                        length = 0;
+                        continue;
+                    }
+                    justOpened = false;
+                }
+                // Returns early if the line is stopped; the rest is written on resume
+                offset += line.write(buffer, offset, length - offset);
+            }
+        } catch (IOException | UnsupportedAudioFileException | LineUnavailableException | IllegalArgumentException e) {
+            // IllegalArgumentException: no audio device can play the format
+            System.err.println("Error playing " + file + ": " + e.getMessage());
+            playing = false;
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                    // Nothing left to do with it
+                }
+            }
+            synchronized (this) {
+                if (line != null) {
+                    line.close();
+                    line = null;
+                }
+                // A later play() starts over with a new thread
+                thread = null;
+                playing = false;
+            }
+        }
+    }
+
+    // Blocks while paused; returns false once the player is closed
+    private synchronized boolean waitUntilPlaying() {
+        while (!playing && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return !closed;
+    }
+
+    // Opens the file as a PCM stream
+    private AudioInputStream open() throws IOException, UnsupportedAudioFileException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()));
+        AudioInputStream stream = AudioSystem.getAudioInputStream(in);
+        AudioFormat format = stream.getFormat();
+        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED
+                && format.getEncoding() != AudioFormat.Encoding.PCM_UNSIGNED) {
+            AudioFormat pcm = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                    format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+            stream = AudioSystem.getAudioInputStream(pcm, stream);
+        }
+        return stream;
+    }
+
+    // Opens the line for the format and returns the read buffer, a whole number of frames long
+    private byte[] openLine(AudioFormat format) throws LineUnavailableException {
+        int frameSize = Math.max(1, format.getFrameSize());
+        int frames = Math.max(1, (int) (format.getFrameRate() * CHUNK_MILLIS / 1000));
+        byte[] buffer = new byte[frames * frameSize];
+        SourceDataLine opened = AudioSystem.getSourceDataLine(format);
+        opened.open(format, buffer.length * LINE_CHUNKS);
+        synchronized (this) {
+            line = opened;
+            if (playing) {
+                line.start();
+            }
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,376 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Purpose:
+ * Perfect-play results for positions with few pieces, generated by TablebaseGenerator.
+ * probe() tells whether the side to move wins, draws or loses, and in how many plies
+ * the losing Sau is captured.
+ *
+ * Design:
+ * - One table per material, e.g. "SBvST" (Pink: Sau and Biz, Blue: Sau and a Tor/Xor).
+ *   Tor and Xor count as one kind, since they turn into each other; the piece type and
+ *   the moved-once counter are part of the position index, as is a Ram's direction.
+ * - A table holds one byte per index. 0 is a draw, an odd value d is a win in d plies,
+ *   an even value d a loss in d plies; INVALID marks indexes that are no position.
+ * - The position index is computed from the bitboards, so a probe is a few bit
+ *   operations and one read from the memory-mapped table.
+ * - Squares are from Pink's side like everywhere in BitboardPosition, so the board flip
+ *   after every turn needs no special handling.
+ *
+ * Table file layout (little endian): magic "KWTB", version, the material key, the number
+ * of entries, then one byte per entry.
+ */
+public final class Tablebase {
+
+    // Largest number of pieces (both Saus included) a table may hold
+    public static final int MAX_PIECES = 4;
+
+    // Results of probe()
+    public static final int UNKNOWN = -1;
+    public static final int DRAW = 0;
+
+    public static final String FILE_SUFFIX = ".ktb";
+    static final int INVALID = 255;
+    static final int MAGIC = 0x4254574B; // "KWTB" read as little-endian int
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    // Piece kinds of the pieces besides the two Saus: color * 3 + kind
+    static final int KINDS = 6;
+    static final int KIND_RAM = 0;
+    static final int KIND_BIZ = 1;
+    static final int KIND_TOR_XOR = 2;
+    private static final char[] KIND_LETTERS = {'R', 'B', 'T'};
+    private static final int[] KIND_STATES = {2, 1, 4};
+
+    private static Tablebase defaultTablebase;
+    private static boolean defaultLoaded = false;
+
+    // Tables by material key; the key packs two bits of count per kind
+    private final Table[] tables = new Table[1 << (2 * KINDS)];
+    private int maxPieces = 0;
+
+    /**
+     * Creates an empty tablebase; tables are added by TablebaseGenerator or open().
+     */
+    Tablebase() {
+    }
+
+    /**
+     * Opens every table file in a directory. The files are memory-mapped.
+     *
+     * @param directory The directory holding the .ktb files.
+     * @return The tablebase.
+     * @throws IOException If a file cannot be mapped or is not a table.
+     */
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                            .order(java.nio.ByteOrder.LITTLE_ENDIAN);
+                    if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) {
+                        throw new IOException("Not a tablebase file: " + file);
+                    }
+                    Table table = new Table(data.getInt(8));
+                    if (data.getInt(12) != table.size) {
+                        throw new IOException("Wrong table size in " + file);
+                    }
+                    table.values = data.slice(HEADER_BYTES, table.size);
+                    tablebase.add(table);
+                }
+            }
+        }
+        return tablebase;
+    }
+
+    /**
+     * Returns the tablebase in the directory named by the system property
+     * "kwazam.tablebase", or null if the property is not set or the tables cannot be read.
+     */
+    public static synchronized Tablebase getDefault() {
+        if (!defaultLoaded) {
+            defaultLoaded = true;
+            String directory = System.getProperty("kwazam.tablebase");
+            if (directory != null) {
+                try {
+                    defaultTablebase = open(Path.of(directory));
+                } catch (IOException e) {
+                    System.err.println("Could not load the tablebase: " + e.getMessage());
+                }
+            }
+        }
+        return defaultTablebase;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param position The position; the side to move is the one the result is for.
+     * @return DRAW, an odd number of plies to a win, an even number of plies to a loss,
+     *         or UNKNOWN if there is no table for the position.
+     */
+    public int probe(BitboardPosition position) {
+        if (position.isGameOver()) {
+            return UNKNOWN;
+        }
+        int key = materialKey(position);
+        Table table = key >= 0 ? tables[key] : null;
+        if (table == null) {
+            return UNKNOWN;
+        }
+        return table.values.get(table.index(position)) & 0xFF;
+    }
+
+    /**
+     * Picks a move that keeps the best result: the fastest win, a draw, or the
+     * slowest loss. Useful for hints and for playing out a known endgame.
+     *
+     * @param position The position; it is changed during the call but restored.
+     * @return The move, or Move.NONE if the position is not in the tablebase or has no moves.
+     */
+    public int bestMove(BitboardPosition position) {
+        if (probe(position) == UNKNOWN) {
+            return Move.NONE;
+        }
+        int[] moves = new int[MoveGenerator.MAX_MOVES];
+        int count = MoveGenerator.generate(position, moves);
+        int bestMove = Move.NONE;
+        int bestRank = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            // Rank from the mover's side: capturing the Sau beats everything
+            int rank = position.isGameOver() ? Integer.MAX_VALUE : rank(probe(position));
+            position.unmakeMove();
+            if (rank > bestRank) {
+                bestRank = rank;
+                bestMove = moves[i];
+            }
+        }
+        return bestMove;
+    }
+
+    // Orders results of the opponent's position from the mover's point of view
+    private static int rank(int result) {
+        if (result == UNKNOWN || result == DRAW) {
+            return 0;
+        }
+        // The opponent loses: sooner is better. The opponent wins: later is better.
+        return isLoss(result) ? 1000 - result : -1000 + result;
+    }
+
+    public static boolean isWin(int result) {
+        return result > 0 && (result & 1) == 1;
+    }
+
+    public static boolean isLoss(int result) {
+        return result > 0 && (result & 1) == 0;
+    }
+
+    /**
+     * Returns the number of plies until a Sau is captured, for a win or a loss.
+     */
+    public static int distance(int result) {
+        return result;
+    }
+
+    /**
+     * Returns the largest number of pieces covered by a table.
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    void add(Table table) {
+        tables[table.key] = table;
+        maxPieces = Math.max(maxPieces, table.pieces);
+    }
+
+    Table table(int key) {
+        return tables[key];
+    }
+
+    /**
+     * Returns the material key of a position, or -1 if it has too many pieces of a kind.
+     */
+    static int materialKey(BitboardPosition position) {
+        int key = 0;
+        for (int color = BitboardPosition.PINK; color <= BitboardPosition.BLUE; color++) {
+            int rams = Long.bitCount(position.pieces(color, BitboardPosition.RAM));
+            int bizes = Long.bitCount(position.pieces(color, BitboardPosition.BIZ));
+            int torXors = Long.bitCount(position.pieces(color, BitboardPosition.TOR) | position.pieces(color, BitboardPosition.XOR));
+            if ((rams | bizes | torXors) > 3) {
+                return -1;
+            }
+            int shift = 6 * color;
+            key |= rams << shift | bizes << (shift + 2) | torXors << (shift + 4);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the name of a material, e.g. "SBvST".
+     */
+    static String materialName(int key) {
+        StringBuilder name = new StringBuilder();
+        for (int color = BitboardPosition.PINK; color <= BitboardPosition.BLUE; color++) {
+            name.append(color == BitboardPosition.PINK ? "S" : "vS");
+            for (int kind = KIND_RAM; kind <= KIND_TOR_XOR; kind++) {
+                for (int n = (key >>> (2 * (color * 3 + kind))) & 3; n > 0; n--) {
+                    name.append(KIND_LETTERS[kind]);
+                }
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * One material. The index of a position is, from the most significant part down:
+     * side to move, Pink Sau square, Blue Sau square, then for every other piece its
+     * square and its state (Ram direction, or Tor/Xor type and moved-once counter).
+     * Pieces of one kind are taken in square order.
+     */
+    static final class Table {
+        final int key;
+        final int pieces;
+        final int size;
+        // Kind of every piece after the Saus, in index order
+        final int[] slotKinds;
+        ByteBuffer values;
+
+        Table(int key) {
+            this.key = key;
+            int slots = 0;
+            for (int kind = 0; kind < KINDS; kind++) {
+                slots += (key >>> (2 * kind)) & 3;
+            }
+            this.slotKinds = new int[slots];
+            long entries = 2L * BitboardPosition.SQUARES * BitboardPosition.SQUARES;
+            int slot = 0;
+            for (int kind = 0; kind < KINDS; kind++) {
+                for (int n = (key >>> (2 * kind)) & 3; n > 0; n--) {
+                    slotKinds[slot++] = kind;
+                    entries *= (long) BitboardPosition.SQUARES * KIND_STATES[kind % 3];
+                }
+            }
+            if (slots + 2 > MAX_PIECES || entries > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Table too large: " + materialName(key));
+            }
+            this.pieces = slots + 2;
+            this.size = (int) entries;
+        }
+
+        int index(BitboardPosition position) {
+            int index = position.isPinkToMove() ? 0 : 1;
+            index = index * BitboardPosition.SQUARES
+                    + Long.numberOfTrailingZeros(position.pieces(BitboardPosition.PINK, BitboardPosition.SAU));
+            index = index * BitboardPosition.SQUARES
+                    + Long.numberOfTrailingZeros(position.pieces(BitboardPosition.BLUE, BitboardPosition.SAU));
+            int kind = -1;
+            long remaining = 0;
+            for (int slotKind : slotKinds) {
+                if (slotKind != kind) {
+                    kind = slotKind;
+                    remaining = kindMask(position, kind);
+                }
+                int sq = Long.numberOfTrailingZeros(remaining);
+                remaining &= remaining - 1;
+                int states = KIND_STATES[kind % 3];
+                index = index * BitboardPosition.SQUARES * states + sq * states + state(position, kind, sq);
+            }
+            return index;
+        }
+
+        /**
+         * Sets up the position with the given index.
+         *
+         * @return False if the index is no position: two pieces on one square, or pieces
+         *         of one kind out of square order (the same position has another index).
+         */
+        boolean decode(int index, BitboardPosition position) {
+            position.clear();
+            long occupied = 0;
+            int previousKind = -1;
+            int previousSquare = -1;
+            for (int slot = slotKinds.length - 1; slot >= 0; slot--) {
+                int kind = slotKinds[slot];
+                int states = KIND_STATES[kind % 3];
+                int value = index % (BitboardPosition.SQUARES * states);
+                index /= BitboardPosition.SQUARES * states;
+                int sq = value / states;
+                // Walking the slots backwards, squares of one kind must go down
+                if ((occupied & (1L << sq)) != 0 || (kind == previousKind && sq >= previousSquare)) {
+                    return false;
+                }
+                occupied |= 1L << sq;
+                previousKind = kind;
+                previousSquare = sq;
+                putPiece(position, kind, sq, value % states);
+            }
+            int blueSau = index % BitboardPosition.SQUARES;
+            index /= BitboardPosition.SQUARES;
+            int pinkSau = index % BitboardPosition.SQUARES;
+            index /= BitboardPosition.SQUARES;
+            if (pinkSau == blueSau || (occupied & ((1L << pinkSau) | (1L << blueSau))) != 0) {
+                return false;
+            }
+            position.put(pinkSau, BitboardPosition.PINK, BitboardPosition.SAU);
+            position.put(blueSau, BitboardPosition.BLUE, BitboardPosition.SAU);
+            position.setPinkToMove(index == 0);
+            return true;
+        }
+
+        private static long kindMask(BitboardPosition position, int kind) {
+            int color = kind / 3;
+            switch (kind % 3) {
+                case KIND_RAM:
+                    return position.pieces(color, BitboardPosition.RAM);
+                case KIND_BIZ:
+                    return position.pieces(color, BitboardPosition.BIZ);
+                default:
+                    return position.pieces(color, BitboardPosition.TOR) | position.pieces(color, BitboardPosition.XOR);
+            }
+        }
+
+        private static int state(BitboardPosition position, int kind, int sq) {
+            long bit = 1L << sq;
+            switch (kind % 3) {
+                case KIND_RAM:
+                    return (position.ramsReturning() & bit) != 0 ? 1 : 0;
+                case KIND_BIZ:
+                    return 0;
+                default:
+                    return (position.typeAt(sq) == BitboardPosition.XOR ? 2 : 0)
+                            | ((position.movedOnce() & bit) != 0 ? 1 : 0);
+            }
+        }
+
+        private static void putPiece(BitboardPosition position, int kind, int sq, int state) {
+            int color = kind / 3;
+            switch (kind % 3) {
+                case KIND_RAM:
+                    position.put(sq, color, BitboardPosition.RAM);
+                    if (state == 1) {
+                        position.setRamReturning(sq);
+                    }
+                    break;
+                case KIND_BIZ:
+                    position.put(sq, color, BitboardPosition.BIZ);
+                    break;
+                default:
+                    position.put(sq, color, (state & 2) != 0 ? BitboardPosition.XOR : BitboardPosition.TOR);
+                    if ((state & 1) != 0) {
+                        position.setMovedOnce(sq);
+                    }
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Purpose:
+ * Builds the Tablebase tables for every material with up to K pieces (both Saus
+ * included) and writes them to a directory.
+ *
+ * Design:
+ * - Smaller materials are solved first, so a capture always leads into a table that is
+ *   already known.
+ * - Each table is solved with passes over all of its positions. Pass d finds the
+ *   positions whose Sau capture is exactly d plies away: on odd passes the wins (a move
+ *   reaches a loss in d - 1 or captures the Sau), on even passes the losses (every move
+ *   reaches a win in less than d). A pass only writes wins or only losses and only
+ *   reads the other kind, so positions can be solved in parallel without locking.
+ *   When a pass finds nothing, everything left is a draw.
+ * - Successors are made with BitboardPosition.makeMove, so the Tor/Xor transformation,
+ *   the Ram turning around and the side to move are exactly the game's rules.
+ * - Every pass is split over a fork-join pool.
+ * - The verify mode checks written tables against the search engine: in sampled
+ *   positions of every table, a plain search (no tablebase) must find the same win or
+ *   loss distance, or no forced result for a draw. Only positions whose result is
+ *   within the search depth are sampled.
+ *
+ * Usage: java TablebaseGenerator [max pieces] [directory] [threads]
+ *        java TablebaseGenerator verify [directory] [positions per table] [depth]
+ */
+public class TablebaseGenerator {
+
+    // Indexes below this many are solved by one task instead of being split further
+    private static final int INDEXES_PER_TASK = 4096;
+
+    private final Tablebase tablebase = new Tablebase();
+    private final ForkJoinPool pool;
+
+    // Search state of each pool thread
+    private final ThreadLocal<BitboardPosition> positions = ThreadLocal.withInitial(BitboardPosition::new);
+    private final ThreadLocal<int[]> moveBuffers = ThreadLocal.withInitial(() -> new int[MoveGenerator.MAX_MOVES]);
+
+    public TablebaseGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("verify")) {
+            Path directory = Path.of(args.length > 1 ? args[1] : "tablebase");
+            int samples = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+            int depth = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+            int mismatches = verify(Tablebase.open(directory), samples, depth);
+            System.out.println(mismatches == 0 ? "All tables agree with the search" : mismatches + " mismatches");
+            return;
+        }
+        int maxPieces = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Path directory = Path.of(args.length > 1 ? args[1] : "tablebase");
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        Files.createDirectories(directory);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        TablebaseGenerator generator = new TablebaseGenerator(pool);
+        long start = System.nanoTime();
+        for (int key : materials(maxPieces)) {
+            long tableStart = System.nanoTime();
+            Tablebase.Table table = generator.generate(key);
+            generator.write(table, directory.resolve(Tablebase.materialName(key) + Tablebase.FILE_SUFFIX));
+            System.out.printf("%-8s %,12d entries  %8.1f ms%n", Tablebase.materialName(key), table.size,
+                    (System.nanoTime() - tableStart) / 1e6);
+        }
+        pool.shutdown();
+        System.out.printf("Done in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Compares sampled positions of every table with a plain fixed-depth search and
+     * prints the positions where they disagree.
+     *
+     * @param tablebase The tables to check.
+     * @param samples   The number of positions to check per table.
+     * @param depth     The search depth; only results up to depth - 1 plies are sampled.
+     * @return The number of mismatches.
+     */
+    static int verify(Tablebase tablebase, int samples, int depth) {
+        SearchEngine engine = new SearchEngine(new TranspositionTable(4));
+        engine.setTimeLimit(0);
+        engine.setMaxDepth(depth);
+        SplittableRandom random = new SplittableRandom(1);
+        BitboardPosition position = new BitboardPosition();
+        int mismatches = 0;
+        for (int key : materials(tablebase.getMaxPieces())) {
+            Tablebase.Table table = tablebase.table(key);
+            if (table == null) {
+                continue;
+            }
+            long start = System.nanoTime();
+            int checked = 0;
+            int tableMismatches = 0;
+            // Small tables may not have enough positions within the depth
+            for (int tries = 0; checked < samples && tries < 100 * samples; tries++) {
+                int index = random.nextInt(table.size);
+                if (!table.decode(index, position)) {
+                    continue;
+                }
+                int result = tablebase.probe(position);
+                if (table.index(position) != index || result == Tablebase.UNKNOWN) {
+                    System.out.println(Tablebase.materialName(key) + " index " + index + ": does not read back");
+                    tableMismatches++;
+                    checked++;
+                    continue;
+                }
+                if (result >= depth) {
+                    continue;
+                }
+                // Each search starts from an empty table, so positions do not depend on each other
+                engine.getTable().clear();
+                engine.search(position);
+                int score = engine.getBestScore();
+                boolean agrees = result == Tablebase.DRAW ? Math.abs(score) < SearchEngine.MATE_BOUND
+                        : score == (Tablebase.isWin(result) ? SearchEngine.MATE - result : -SearchEngine.MATE + result);
+                if (!agrees) {
+                    System.out.println(Tablebase.materialName(key) + " index " + index + ": tablebase " + result
+                            + ", search score " + score);
+                    tableMismatches++;
+                }
+                checked++;
+            }
+            System.out.printf("%-8s %6d positions  %4d mismatches  %8.1f ms%n", Tablebase.materialName(key), checked,
+                    tableMismatches, (System.nanoTime() - start) / 1e6);
+            mismatches += tableMismatches;
+        }
+        return mismatches;
+    }
+
+    /**
+     * Lists every material with up to maxPieces pieces, fewest pieces first.
+     */
+    static List<Integer> materials(int maxPieces) {
+        if (maxPieces < 2 || maxPieces > Tablebase.MAX_PIECES) {
+            throw new IllegalArgumentException("Pieces must be between 2 and " + Tablebase.MAX_PIECES);
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (int extra = 0; extra <= maxPieces - 2; extra++) {
+            addMaterials(keys, 0, 0, extra);
+        }
+        return keys;
+    }
+
+    // Adds every way to spread the given number of extra pieces over the kinds from kind on
+    private static void addMaterials(List<Integer> keys, int key, int kind, int extra) {
+        if (kind == Tablebase.KINDS) {
+            if (extra == 0) {
+                keys.add(key);
+            }
+            return;
+        }
+        for (int n = 0; n <= Math.min(extra, 3); n++) {
+            addMaterials(keys, key | n << (2 * kind), kind + 1, extra - n);
+        }
+    }
+
+    /**
+     * Solves one material. Every material it can reach by a capture must be generated first.
+     *
+     * @param key The material key.
+     * @return The solved table, also added to this generator's tablebase.
+     */
+    public Tablebase.Table generate(int key) {
+        Tablebase.Table table = new Tablebase.Table(key);
+        byte[] values = new byte[table.size];
+        table.values = ByteBuffer.wrap(values);
+        tablebase.add(table);
+
+        pool.invoke(new Pass(table, values, 0, 0, table.size, null));
+        LongAdder solved = new LongAdder();
+        for (int distance = 1; ; distance++) {
+            if (distance >= Tablebase.INVALID) {
+                throw new IllegalStateException("Distance does not fit in a byte in " + Tablebase.materialName(key));
+            }
+            solved.reset();
+            pool.invoke(new Pass(table, values, distance, 0, table.size, solved));
+            if (solved.sum() == 0) {
+                break;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Writes a solved table in the file format read by Tablebase.open().
+     */
+    public void write(Tablebase.Table table, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(Tablebase.MAGIC).putInt(Tablebase.VERSION).putInt(table.key).putInt(table.size);
+        header.flip();
+        ByteBuffer values = table.values.duplicate();
+        values.clear();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (values.hasRemaining()) {
+                channel.write(values);
+            }
+        }
+    }
+
+    // One pass over a range of indexes; pass 0 marks the indexes that are no position
+    private final class Pass extends RecursiveAction {
+        private final Tablebase.Table table;
+        private final byte[] values;
+        private final int distance;
+        private final int from;
+        private final int to;
+        private final LongAdder solved;
+
+        Pass(Tablebase.Table table, byte[] values, int distance, int from, int to, LongAdder solved) {
+            this.table = table;
+            this.values = values;
+            this.distance = distance;
+            this.from = from;
+            this.to = to;
+            this.solved = solved;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > INDEXES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Pass(table, values, distance, from, middle, solved),
+                        new Pass(table, values, distance, middle, to, solved));
+                return;
+            }
+            BitboardPosition position = positions.get();
+            int[] moves = moveBuffers.get();
+            int count = 0;
+            for (int index = from; index < to; index++) {
+                if (distance == 0) {
+                    if (!table.decode(index, position)) {
+                        values[index] = (byte) Tablebase.INVALID;
+                    }
+                } else if (values[index] == 0 && table.decode(index, position)
+                        && solve(position, moves, distance)) {
+                    values[index] = (byte) distance;
+                    count++;
+                }
+            }
+            if (count > 0) {
+                solved.add(count);
+            }
+        }
+    }
+
+    // Checks whether the position is a win (odd distance) or loss (even distance) in exactly distance plies
+    private boolean solve(BitboardPosition position, int[] moves, int distance) {
+        int count = MoveGenerator.generate(position, moves);
+        if (count == 0) {
+            // No piece can move: a draw
+            return false;
+        }
+        boolean findWin = (distance & 1) == 1;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            boolean sauCaptured = position.isGameOver();
+            int result = sauCaptured ? Tablebase.UNKNOWN : tablebase.probe(position);
+            position.unmakeMove();
+            if (findWin) {
+                if (sauCaptured || (Tablebase.isLoss(result) && result < distance)) {
+                    return true;
+                }
+            } else if (sauCaptured || !Tablebase.isWin(result) || result >= distance) {
+                // This move escapes, or at least delays the loss
+                return false;
+            }
+        }
+        return !findWin;
+    }
+}
@@ -0,0 +1,234 @@
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Purpose:
+ * Plays many games between two players without Swing, to compare engine versions or
+ * rule changes. Games are spread over a fork-join pool and every game is played on its
+ * own GameSession (and so its own ChessModel).
+ *
+ * Design:
+ * - A player is "random" (a uniformly random legal move) or "engine:N" (SearchEngine
+ *   with a budget of N nodes per move, so results do not depend on machine load).
+ *   Every pool thread keeps one engine per color, so in engine:A against engine:B
+ *   neither side reuses the other's transposition table; both tables are emptied
+ *   before each game.
+ * - A game is a draw when it reaches the ply limit, when the player to move has no
+ *   move, or when a position occurs for the third time.
+ * - Each game is written as one CSV line as soon as it ends; totals are printed at the end.
+ * - Game i always uses the same random seed, so a run can be repeated.
+ *
+ * Usage: java TournamentRunner [games] [pink player] [blue player] [threads] [output file|-] [max plies]
+ */
+public class TournamentRunner {
+
+    // Draw reasons, also used as the "result" column of the output
+    private static final String[] RESULTS = {"pink", "blue", "ply-limit", "no-moves", "repetition"};
+    private static final int PINK_WIN = 0;
+    private static final int BLUE_WIN = 1;
+    private static final int PLY_LIMIT = 2;
+    private static final int NO_MOVES = 3;
+    private static final int REPETITION = 4;
+
+    // Games below this many are played by one task instead of being split further
+    private static final int GAMES_PER_TASK = 4;
+
+    private final String pinkPlayer;
+    private final String bluePlayer;
+    private final int maxPlies;
+    private final long seed;
+    private final Writer out;
+
+    // Statistics shared by all pool threads
+    private final AtomicLongArray results = new AtomicLongArray(RESULTS.length);
+    private final AtomicLongArray sauCapturedBy = new AtomicLongArray(BitboardPosition.TYPES);
+    private final LongAdder totalPlies = new LongAdder();
+    private final LongAdder sauCapturePlies = new LongAdder();
+    private final LongAccumulator shortestGame = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator longestGame = new LongAccumulator(Math::max, 0);
+
+    // Engines of each pool thread, one per color so neither side searches from the other's table
+    private final ThreadLocal<SearchEngine> pinkEngines = ThreadLocal.withInitial(
+            () -> new SearchEngine(new TranspositionTable(4)));
+    private final ThreadLocal<SearchEngine> blueEngines = ThreadLocal.withInitial(
+            () -> new SearchEngine(new TranspositionTable(4)));
+
+    public TournamentRunner(String pinkPlayer, String bluePlayer, int maxPlies, long seed, Writer out) {
+        this.pinkPlayer = pinkPlayer;
+        this.bluePlayer = bluePlayer;
+        this.maxPlies = maxPlies;
+        this.seed = seed;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        String pink = args.length > 1 ? args[1] : "random";
+        String blue = args.length > 2 ? args[2] : "random";
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        String output = args.length > 4 ? args[4] : "tournament-results.csv";
+        int maxPlies = args.length > 5 ? Integer.parseInt(args[5]) : 300;
+
+        Writer writer = output.equals("-")
+                ? new BufferedWriter(new OutputStreamWriter(System.out))
+                : new BufferedWriter(new FileWriter(output));
+        TournamentRunner runner = new TournamentRunner(pink, blue, maxPlies, 20240101L, writer);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            runner.run(pool, games);
+        } finally {
+            pool.shutdown();
+            writer.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        runner.printSummary(games, threads, seconds);
+    }
+
+    /**
+     * Plays games 0 to games - 1 on the pool and waits for all of them.
+     */
+    public void run(ForkJoinPool pool, int games) throws IOException {
+        synchronized (out) {
+            out.write("game,result,plies,sau_captured_by\n");
+        }
+        pool.invoke(new Games(0, games));
+    }
+
+    // Splits the range of games in halves until the pieces are small
+    private final class Games extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        Games(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int game = from; game < to; game++) {
+                    playGame(game);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Games(from, middle), new Games(middle, to));
+            }
+        }
+    }
+
+    private void playGame(int game) {
+        // The thread's engines may have played another game; their tables would change the moves
+        if (pinkPlayer.startsWith("engine")) {
+            pinkEngines.get().getTable().clear();
+        }
+        if (bluePlayer.startsWith("engine")) {
+            blueEngines.get().getTable().clear();
+        }
+        GameSession session = new GameSession(game);
+        SplittableRandom random = new SplittableRandom(seed + game);
+        long[] keys = new long[maxPlies + 1];
+        keys[0] = session.getPositionKey();
+
+        int result = PLY_LIMIT;
+        int lastMover = BitboardPosition.EMPTY;
+        int plies = 0;
+        while (plies < maxPlies) {
+            int[] moves = session.legalMoves();
+            if (moves.length == 0) {
+                result = NO_MOVES;
+                break;
+            }
+            boolean pinkTurn = session.isPinkTurn();
+            int move = chooseMove(pinkTurn ? pinkPlayer : bluePlayer, pinkTurn ? pinkEngines : blueEngines,
+                    session, moves, random);
+            MoveResult played = session.play(move);
+            plies++;
+            if (played == MoveResult.GAME_WON) {
+                // After a transformation this is the piece the mover became
+                lastMover = session.pieceTypeAt(Move.to(move));
+                result = session.getWinner() == BitboardPosition.PINK ? PINK_WIN : BLUE_WIN;
+                break;
+            }
+            keys[plies] = session.getPositionKey();
+            if (isThirdRepetition(keys, plies)) {
+                result = REPETITION;
+                break;
+            }
+        }
+
+        results.incrementAndGet(result);
+        totalPlies.add(plies);
+        shortestGame.accumulate(plies);
+        longestGame.accumulate(plies);
+        String capturedBy = "";
+        if (result == PINK_WIN || result == BLUE_WIN) {
+            sauCapturedBy.incrementAndGet(lastMover);
+            sauCapturePlies.add(plies);
+            capturedBy = BitboardPosition.nameOf(lastMover);
+        }
+        String line = game + "," + RESULTS[result] + "," + plies + "," + capturedBy + "\n";
+        try {
+            synchronized (out) {
+                out.write(line);
+            }
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+    }
+
+    private int chooseMove(String player, ThreadLocal<SearchEngine> engines, GameSession session, int[] moves,
+                           SplittableRandom random) {
+        if (player.startsWith("engine")) {
+            SearchEngine engine = engines.get();
+            int colon = player.indexOf(':');
+            engine.setTimeLimit(0);
+            engine.setNodeLimit(colon > 0 ? Long.parseLong(player.substring(colon + 1)) : 20000);
+            return engine.search(session.snapshot());
+        }
+        return moves[random.nextInt(moves.length)];
+    }
+
+    // Positions repeat only with the same player to move, so every second key is compared
+    private static boolean isThirdRepetition(long[] keys, int ply) {
+        int seen = 0;
+        for (int i = ply - 2; i >= 0; i -= 2) {
+            if (keys[i] == keys[ply] && ++seen == 2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void printSummary(int games, int threads, double seconds) {
+        System.out.printf("%s (Pink) vs %s (Blue), %d games on %d threads in %.2f s%n",
+                pinkPlayer, bluePlayer, games, threads, seconds);
+        System.out.printf("Pink wins %d, Blue wins %d, draws %d (ply limit %d, no moves %d, repetition %d)%n",
+                results.get(PINK_WIN), results.get(BLUE_WIN),
+                results.get(PLY_LIMIT) + results.get(NO_MOVES) + results.get(REPETITION),
+                results.get(PLY_LIMIT), results.get(NO_MOVES), results.get(REPETITION));
+        System.out.printf("Game length: average %.1f plies, shortest %d, longest %d%n",
+                (double) totalPlies.sum() / games, shortestGame.get(), longestGame.get());
+        long sauCaptures = results.get(PINK_WIN) + results.get(BLUE_WIN);
+        StringBuilder capturers = new StringBuilder();
+        for (int type = 0; type < BitboardPosition.TYPES; type++) {
+            capturers.append(' ').append(BitboardPosition.nameOf(type)).append(' ').append(sauCapturedBy.get(type));
+        }
+        System.out.printf("Sau captures %d, average at ply %.1f, captured by:%s%n",
+                sauCaptures, sauCaptures > 0 ? (double) sauCapturePlies.sum() / sauCaptures : 0.0, capturers);
+        System.out.printf("Throughput: %.1f games/s, %.1f games/s per thread%n",
+                games / seconds, games / seconds / threads);
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Purpose:
+ * Hash table that remembers search results by Zobrist key, so positions reached
+ * through different move orders are only searched once.
+ *
+ * Design:
+ * - Every entry is two longs in one flat array: the key XOR the packed data, and
+ *   the packed data itself, so storing and probing never allocates.
+ * - The table can be shared by several search threads without locks. Each long is
+ *   read and written atomically; if two threads write the same slot at once, the
+ *   halves of the entry no longer match and the XOR check makes the probe miss.
+ * - Data layout: bits 0-11 best move, bits 12-19 depth, bits 20-21 bound type,
+ *   bits 32-63 score.
+ */
+public class TranspositionTable {
+
+    // Bound types
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    private final AtomicLongArray table;
+    private final int mask;
+
+    /**
+     * Creates a table using about the given amount of memory.
+     *
+     * @param megabytes The size of the table in megabytes.
+     */
+    public TranspositionTable(int megabytes) {
+        long entries = Math.max(1024, (long) megabytes * 1024 * 1024 / 16);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 28));
+        this.table = new AtomicLongArray(size * 2);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @param key The Zobrist key of the position.
+     * @return The packed data of the entry, or 0 if the position is not stored.
+     */
+    public long probe(long key) {
+        int index = ((int) key & mask) << 1;
+        long data = table.getOpaque(index + 1);
+        return (table.getOpaque(index) ^ data) == key ? data : 0L;
+    }
+
+    /**
+     * Stores a search result, replacing whatever was in the slot.
+     *
+     * @param key   The Zobrist key of the position.
+     * @param move  The best move found, or Move.NONE.
+     * @param depth The depth searched.
+     * @param bound EXACT, LOWER or UPPER.
+     * @param score The score found.
+     */
+    public void store(long key, int move, int depth, int bound, int score) {
+        int index = ((int) key & mask) << 1;
+        long data = pack(move, depth, bound, score);
+        table.setOpaque(index, key ^ data);
+        table.setOpaque(index + 1, data);
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.setOpaque(i, 0L);
+        }
+    }
+
+    public static long pack(int move, int depth, int bound, int score) {
+        return (move & 0xFFFL) | ((long) (depth & 0xFF) << 12) | ((long) bound << 20) | ((long) score << 32);
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFF);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> 12) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> 20) & 3;
+    }
+
+    public static int score(long data) {
+        return (int) (data >> 32);
+    }
+}